@@ -1,3 +1,10 @@
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
 
 
 /**
@@ -13,6 +20,9 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
     protected int size;
     public BinarySearchTree<V,K> valueTree = new BinarySearchTree<V,K>();
     public BinarySearchTree<K,V> keyTree = new BinarySearchTree<K,V>();
+    private ChangeFeed<K,V> changeFeed;
+    private FrontCache<K,V> keyCache;
+    private FrontCache<V,K> valueCache;
 
     /**
      * constructor initializes the tree with size 0
@@ -22,6 +32,18 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
         
     }
 
+    /**
+     * constructor wraps two trees that already hold the same associations
+     * @param keyTree
+     * @param valueTree
+     * @param size number of associations in the trees
+     */
+    private BidirectionalTreeMap(BinarySearchTree<K,V> keyTree, BinarySearchTree<V,K> valueTree, int size) {
+        this.keyTree = keyTree;
+        this.valueTree = valueTree;
+        this.size = size;
+    }
+
     /**
      * Adds the key and value association to the map. The key is stored in the BST with root keyRoot.
      * The value is stored in a separate BST with root valueRoot. Both node objects contain links to each other.
@@ -33,6 +55,9 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
         if(!checkIfContained(key, value)){
             if(valueTree.add(value, key) && keyTree.add(key, value)){
                 size+=1;
+                if(changeFeed != null){
+                    changeFeed.publish(ChangeEvent.Op.PUT, key, value);
+                }
                 return true;
             }
             else{
@@ -50,12 +75,19 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
      * @return value corresponding to key or null if the key does not exist in the map
      */
     public V getValue(K key){
-        if(keyTree.contains(key)){
+        if(keyCache == null){
             return keyTree.returnLink(key);
         }
-        else{
-            return null;
+        V value = keyCache.get(key);
+        if(value == null){
+            BinaryTree.Node<K,V> node = keyTree.findNode(key);
+            if(node != null){
+                // cached under the stored key, which remove() invalidates, not under the caller's equal object
+                keyCache.put(node.data, node.link);
+                value = node.link;
+            }
         }
+        return value;
     }
 
     /**
@@ -64,12 +96,18 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
      * @return key or null if the value does not exist in the map
      */
     public K getKey(V value){
-       if(valueTree.contains(value)){
-        return valueTree.returnLink(value);
+        if(valueCache == null){
+            return valueTree.returnLink(value);
         }
-        else{
-            return null;
+        K key = valueCache.get(value);
+        if(key == null){
+            BinaryTree.Node<V,K> node = valueTree.findNode(value);
+            if(node != null){
+                valueCache.put(node.data, node.link);
+                key = node.link;
+            }
         }
+        return key;
     }
 
     /**
@@ -78,12 +116,22 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
      * @return value that was removed that corresponds to key or null if the key does not exist in the map.
      */
     public V remove(K key){
-        if(keyTree.contains(key)){
-            V value = keyTree.returnLink(key);
+        BinaryTree.Node<K,V> node = keyTree.findNode(key);
+        if(node != null){
+            // the stored objects, the caches hold entries under these
+            K storedKey = node.data;
+            V value = node.link;
             valueTree.delete(value);
             keyTree.delete(key);
+            if(keyCache != null){
+                keyCache.invalidate(storedKey);
+                valueCache.invalidate(value);
+            }
             if(!checkIfContained(key, value)){
                 size -=1;
+                if(changeFeed != null){
+                    changeFeed.publish(ChangeEvent.Op.REMOVE, key, value);
+                }
                 return value;
             }
             else{
@@ -118,6 +166,139 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
         return sb.toString();
     }
 
+    /**
+     * Streams the entries ordered by keys to out (a Writer, StringBuilder, ...) without building the whole dump in memory.
+     * @param out
+     * @param format TEXT or CSV
+     * @throws IOException if out throws
+     * @throws IllegalArgumentException if format is BINARY
+     */
+    public void exportByKeys(Appendable out, ExportFormat format) throws IOException {
+        exportByKeys(out, format, null, null);
+    }
+
+    /**
+     * Streams the entries with a key in [from, to) ordered by keys to out.
+     * @param out
+     * @param format TEXT or CSV
+     * @param from smallest key to export, or null to start at the first key
+     * @param to key to stop at (exclusive), or null to export up to the last key
+     * @throws IOException if out throws
+     * @throws IllegalArgumentException if format is BINARY
+     */
+    public void exportByKeys(Appendable out, ExportFormat format, K from, K to) throws IOException {
+        checkTextFormat(format);
+        boolean first = true;
+        Iterator<BinaryTree.Node<K,V>> it = keyTree.inOrderIterator(from, to);
+        while (it.hasNext()) {
+            BinaryTree.Node<K,V> node = it.next();
+            format.append(out, node.data, node.link, first);
+            first = false;
+        }
+    }
+
+    /**
+     * Streams the entries ordered by values to out without building the whole dump in memory.
+     * @param out
+     * @param format TEXT or CSV
+     * @throws IOException if out throws
+     * @throws IllegalArgumentException if format is BINARY
+     */
+    public void exportByValues(Appendable out, ExportFormat format) throws IOException {
+        exportByValues(out, format, null, null);
+    }
+
+    /**
+     * Streams the entries with a value in [from, to) ordered by values to out.
+     * @param out
+     * @param format TEXT or CSV
+     * @param from smallest value to export, or null to start at the first value
+     * @param to value to stop at (exclusive), or null to export up to the last value
+     * @throws IOException if out throws
+     * @throws IllegalArgumentException if format is BINARY
+     */
+    public void exportByValues(Appendable out, ExportFormat format, V from, V to) throws IOException {
+        checkTextFormat(format);
+        boolean first = true;
+        Iterator<BinaryTree.Node<V,K>> it = valueTree.inOrderIterator(from, to);
+        while (it.hasNext()) {
+            BinaryTree.Node<V,K> node = it.next();
+            format.append(out, node.link, node.data, first);
+            first = false;
+        }
+    }
+
+    /**
+     * Rejects BINARY for Appendable exports before anything is written, even if there is nothing to export
+     * @param format
+     * @throws IllegalArgumentException if format is BINARY
+     */
+    private static void checkTextFormat(ExportFormat format) {
+        if(format == ExportFormat.BINARY){
+            throw new IllegalArgumentException("BINARY can only be exported to a WritableByteChannel");
+        }
+    }
+
+    /**
+     * Streams the entries ordered by keys to a channel through a small reused direct buffer.
+     * @param channel
+     * @param format any format, text is encoded as UTF-8
+     * @throws IOException if the channel throws
+     */
+    public void exportByKeys(WritableByteChannel channel, ExportFormat format) throws IOException {
+        exportByKeys(channel, format, null, null);
+    }
+
+    /**
+     * Streams the entries with a key in [from, to) ordered by keys to a channel.
+     * @param channel
+     * @param format any format, text is encoded as UTF-8
+     * @param from smallest key to export, or null to start at the first key
+     * @param to key to stop at (exclusive), or null to export up to the last key
+     * @throws IOException if the channel throws
+     */
+    public void exportByKeys(WritableByteChannel channel, ExportFormat format, K from, K to) throws IOException {
+        ChannelSink sink = new ChannelSink(channel);
+        boolean first = true;
+        Iterator<BinaryTree.Node<K,V>> it = keyTree.inOrderIterator(from, to);
+        while (it.hasNext()) {
+            BinaryTree.Node<K,V> node = it.next();
+            format.write(sink, node.data, node.link, first);
+            first = false;
+        }
+        sink.flush();
+    }
+
+    /**
+     * Streams the entries ordered by values to a channel through a small reused direct buffer.
+     * @param channel
+     * @param format any format, text is encoded as UTF-8
+     * @throws IOException if the channel throws
+     */
+    public void exportByValues(WritableByteChannel channel, ExportFormat format) throws IOException {
+        exportByValues(channel, format, null, null);
+    }
+
+    /**
+     * Streams the entries with a value in [from, to) ordered by values to a channel.
+     * @param channel
+     * @param format any format, text is encoded as UTF-8
+     * @param from smallest value to export, or null to start at the first value
+     * @param to value to stop at (exclusive), or null to export up to the last value
+     * @throws IOException if the channel throws
+     */
+    public void exportByValues(WritableByteChannel channel, ExportFormat format, V from, V to) throws IOException {
+        ChannelSink sink = new ChannelSink(channel);
+        boolean first = true;
+        Iterator<BinaryTree.Node<V,K>> it = valueTree.inOrderIterator(from, to);
+        while (it.hasNext()) {
+            BinaryTree.Node<V,K> node = it.next();
+            format.write(sink, node.link, node.data, first);
+            first = false;
+        }
+        sink.flush();
+    }
+
     /**
      * Checks if the key exists in the map
      * @param key
@@ -144,16 +325,242 @@ public class BidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<
     }
 
     /**
-     * Returns true if the keytree contains the key AND the value tree contains the value.
-     * Returns false if both or one of them cannot be found.
+     * Turns on the change feed. From then on every successful put and remove is published to it.
+     * Without a feed, mutations only pay for a null check.
+     * @param capacity number of events the feed keeps, must be a power of two
+     * @return the feed of this map, an already enabled feed is returned unchanged
+     */
+    public ChangeFeed<K,V> enableChangeFeed(int capacity) {
+        if(changeFeed == null){
+            changeFeed = new ChangeFeed<K,V>(capacity);
+        }
+        return changeFeed;
+    }
+
+    /**
+     * @return the change feed of this map or null if it was not enabled
+     */
+    public ChangeFeed<K,V> changeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Turns on a front cache for each direction. Hot keys and values are then answered by a single array probe
+     * instead of a descent of the tree. Removed associations are invalidated before remove returns.
+     * @param capacity number of slots of each cache, must be a power of two
+     */
+    public void enableFrontCache(int capacity) {
+        if(keyCache == null){
+            keyCache = new FrontCache<K,V>(capacity);
+            valueCache = new FrontCache<V,K>(capacity);
+        }
+    }
+
+    /**
+     * @return the front cache used by getValue or null if it was not enabled
+     */
+    public FrontCache<K,V> keyCache() {
+        return keyCache;
+    }
+
+    /**
+     * @return the front cache used by getKey or null if it was not enabled
+     */
+    public FrontCache<V,K> valueCache() {
+        return valueCache;
+    }
+
+    /**
+     * Compacts both orderings into an immutable map backed by arrays in Eytzinger layout.
+     * Meant for maps that are built once and then only read. This map is not modified and stays usable.
+     * @return a frozen snapshot of the current associations
+     */
+    public FrozenBidirectionalMap<K,V> freeze() {
+        return new FrozenBidirectionalMap<K,V>(keyTree);
+    }
+
+    /**
+     * Walks the keyTrees of both maps side by side in a single inorder pass, which takes O(n+m) time.
+     * Every key is reported to the listener in ascending order as added (only in other),
+     * removed (only in this map), changed or unchanged.
+     * Neither map may be modified during the walk.
+     * @param other the map to compare against
+     * @param listener receives the differences
+     */
+    public void diff(BidirectionalTreeMap<K,V> other, MapDiffListener<K,V> listener) {
+        Iterator<BinaryTree.Node<K,V>> mine = keyTree.inOrderIterator();
+        Iterator<BinaryTree.Node<K,V>> theirs = other.keyTree.inOrderIterator();
+        BinaryTree.Node<K,V> a = mine.hasNext() ? mine.next() : null;
+        BinaryTree.Node<K,V> b = theirs.hasNext() ? theirs.next() : null;
+        while (a != null || b != null) {
+            int compResult;
+            if (a == null) {
+                compResult = 1;
+            } else if (b == null) {
+                compResult = -1;
+            } else {
+                compResult = a.data.compareTo(b.data);
+            }
+
+            if (compResult < 0) {
+                listener.removed(a.data, a.link);
+                a = mine.hasNext() ? mine.next() : null;
+            } else if (compResult > 0) {
+                listener.added(b.data, b.link);
+                b = theirs.hasNext() ? theirs.next() : null;
+            } else {
+                if (a.link.compareTo(b.link) == 0) {
+                    listener.unchanged(a.data, a.link);
+                } else {
+                    listener.changed(a.data, a.link, b.link);
+                }
+                a = mine.hasNext() ? mine.next() : null;
+                b = theirs.hasNext() ? theirs.next() : null;
+            }
+        }
+    }
+
+    /**
+     * Returns a new map holding every association of this map and of the other map.
+     * @param other
+     * @return the union, neither map is modified
+     * @see #union(BidirectionalTreeMap, MapDiffListener)
+     */
+    public BidirectionalTreeMap<K,V> union(BidirectionalTreeMap<K,V> other) {
+        return union(other, new MapDiffListener<K,V>() { });
+    }
+
+    /**
+     * Returns a new map holding every association of this map and of the other map.
+     * Associations of this map win: an entry of the other map whose key is bound to a different value here,
+     * or whose value is already bound to another key here, is left out and reported as a conflict.
+     * @param other
+     * @param listener receives the conflicts
+     * @return the union, neither map is modified
+     */
+    public BidirectionalTreeMap<K,V> union(BidirectionalTreeMap<K,V> other, MapDiffListener<K,V> listener) {
+        List<K> keys = new ArrayList<K>();
+        List<V> values = new ArrayList<V>();
+        diff(other, new MapDiffListener<K,V>() {
+            @Override
+            public void added(K key, V value) {
+                if (valueTree.contains(value)) {
+                    listener.conflict(key, value);
+                } else {
+                    keys.add(key);
+                    values.add(value);
+                }
+            }
+
+            @Override
+            public void removed(K key, V value) {
+                keys.add(key);
+                values.add(value);
+            }
+
+            @Override
+            public void changed(K key, V oldValue, V newValue) {
+                keys.add(key);
+                values.add(oldValue);
+                listener.conflict(key, newValue);
+            }
+
+            @Override
+            public void unchanged(K key, V value) {
+                keys.add(key);
+                values.add(value);
+            }
+        });
+        return fromSortedKeys(keys, values);
+    }
+
+    /**
+     * Returns a new map holding the associations contained in both maps.
+     * @param other
+     * @return the intersection, neither map is modified
+     * @see #intersection(BidirectionalTreeMap, MapDiffListener)
+     */
+    public BidirectionalTreeMap<K,V> intersection(BidirectionalTreeMap<K,V> other) {
+        return intersection(other, new MapDiffListener<K,V>() { });
+    }
+
+    /**
+     * Returns a new map holding the associations contained in both maps.
+     * A key that is bound to different values in the two maps is left out and reported as a conflict.
+     * @param other
+     * @param listener receives the conflicts
+     * @return the intersection, neither map is modified
+     */
+    public BidirectionalTreeMap<K,V> intersection(BidirectionalTreeMap<K,V> other, MapDiffListener<K,V> listener) {
+        List<K> keys = new ArrayList<K>();
+        List<V> values = new ArrayList<V>();
+        diff(other, new MapDiffListener<K,V>() {
+            @Override
+            public void changed(K key, V oldValue, V newValue) {
+                listener.conflict(key, newValue);
+            }
+
+            @Override
+            public void unchanged(K key, V value) {
+                keys.add(key);
+                values.add(value);
+            }
+        });
+        return fromSortedKeys(keys, values);
+    }
+
+    /**
+     * Returns a new map holding the associations of this map whose key is not contained in the other map.
+     * @param other
+     * @return the difference, neither map is modified
+     */
+    public BidirectionalTreeMap<K,V> difference(BidirectionalTreeMap<K,V> other) {
+        List<K> keys = new ArrayList<K>();
+        List<V> values = new ArrayList<V>();
+        diff(other, new MapDiffListener<K,V>() {
+            @Override
+            public void removed(K key, V value) {
+                keys.add(key);
+                values.add(value);
+            }
+        });
+        return fromSortedKeys(keys, values);
+    }
+
+    /**
+     * Builds a map from associations sorted by key. The keyTree is built in linear time,
+     * the values are sorted once to build a balanced valueTree.
+     * @param keys keys in ascending order
+     * @param values the value of every key, must be unique
+     * @return the new map
+     */
+    private static <K extends Comparable<K>, V extends Comparable<V>> BidirectionalTreeMap<K,V> fromSortedKeys(List<K> keys, List<V> values) {
+        Integer[] order = new Integer[values.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> values.get(i).compareTo(values.get(j)));
+        List<V> sortedValues = new ArrayList<V>(order.length);
+        List<K> valueLinks = new ArrayList<K>(order.length);
+        for (Integer i : order) {
+            sortedValues.add(values.get(i));
+            valueLinks.add(keys.get(i));
+        }
+        return new BidirectionalTreeMap<K,V>(BinarySearchTree.fromSorted(keys, values),
+                BinarySearchTree.fromSorted(sortedValues, valueLinks), keys.size());
+    }
+
+    /**
+     * Returns true if the keytree contains the key OR the value tree contains the value.
+     * Returns false only if neither of them can be found, so put never touches a tree for a rejected pair.
      * @param key
      * @param value
-     * @return true if the key is contained in the keymap and the value is contained in the vlauemap
+     * @return true if the key is contained in the keymap or the value is contained in the valuemap
      */
     private boolean checkIfContained(K key, V value){
         Boolean keyCheck = keyTree.contains(key);
         Boolean valueCheck = valueTree.contains(value);
-        if(keyCheck&&valueCheck){
+        if(keyCheck||valueCheck){
             return true;
         }
         else{
@@ -1,4 +1,5 @@
-
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * A class to represent a binary search tree.
@@ -22,6 +23,41 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
      */
     protected E deleteReturn;
 
+    /**
+     * Builds a balanced tree in linear time from data that is already sorted.
+     *
+     * @param data  The data objects in ascending order, without duplicates
+     * @param links The link object for every data object
+     * @return a new balanced tree holding all data/link pairs
+     */
+    static <E extends Comparable<E>, V extends Comparable<V>> BinarySearchTree<E,V> fromSorted(List<E> data, List<V> links) {
+        BinarySearchTree<E,V> tree = new BinarySearchTree<E,V>();
+        tree.root = fromSorted(data, links, 0, data.size(), null);
+        return tree;
+    }
+
+    /**
+     * Recursive build method, the middle element of the range becomes the local root.
+     *
+     * @param data   The sorted data objects
+     * @param links  The link objects
+     * @param from   First index of the range, inclusive
+     * @param to     Last index of the range, exclusive
+     * @param parent The parent of the local root
+     * @return The local root of the subtree built from the range
+     */
+    private static <E extends Comparable<E>, V extends Comparable<V>> Node<E,V> fromSorted(List<E> data, List<V> links, int from, int to, Node<E,V> parent) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node<E,V> localRoot = new Node<E,V>(data.get(mid), links.get(mid));
+        localRoot.parent = parent;
+        localRoot.left = fromSorted(data, links, from, mid, localRoot);
+        localRoot.right = fromSorted(data, links, mid + 1, to, localRoot);
+        return localRoot;
+    }
+
     /**
      * Checks whether the target data is contained in the tree
      * @param target
@@ -88,6 +124,18 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
         return returnLink(root, data);
     }
 
+    /**
+     * Starter method findNode.
+     *
+     * @param target The Comparable object being sought
+     * @return The node holding an object equal to target, if found, otherwise null
+     * @pre The target object must implement
+     * the Comparable interface.
+     */
+    Node<E,V> findNode(E target) {
+        return findNode(root, target);
+    }
+
     /**
      * Recursive find method.
      *
@@ -136,6 +184,29 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
         }
     }
 
+    /**
+     * Recursive find method that returns the node of a target object E.
+     *
+     * @param localRoot The local subtree's root
+     * @param target    The object being sought
+     * @return The node, if found, otherwise null
+     */
+    private Node<E,V> findNode(Node<E,V> localRoot, E target) {
+        if (localRoot == null) {
+            return null;
+        }
+
+        // Compare the target with the data field at the root.
+        int compResult = target.compareTo(localRoot.data);
+        if (compResult == 0) {
+            return localRoot;
+        } else if (compResult < 0) {
+            return findNode(localRoot.left, target);
+        } else {
+            return findNode(localRoot.right, target);
+        }
+    }
+
      /**
      * Recursive find method to find a link object.
      *
@@ -159,6 +230,19 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
         }
     }
 
+    /**
+     * Returns an iterator over the nodes whose data lies in [from, to) in inorder.
+     * Subtrees outside the range are never visited.
+     * The tree must not be modified while the iterator is in use.
+     *
+     * @param from Smallest data to visit, inclusive, or null for no lower bound
+     * @param to   Data to stop at, exclusive, or null for no upper bound
+     * @return an iterator visiting the nodes of the range in ascending data order
+     */
+    Iterator<Node<E,V>> inOrderIterator(E from, E to) {
+        return new InOrderIterator<E,V>(root, from, to);
+    }
+
     /**
      * Starter method add.
      *
@@ -283,8 +367,10 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
                     return localRoot;
                 } else {
                     // Search for the inorder predecessor (ip) and
-                    // replace deleted node's data with ip.
-                    localRoot.data = findLargestChild(localRoot.left);
+                    // replace deleted node's data and link with ip.
+                    Node<E,V> ip = findLargestChild(localRoot.left);
+                    localRoot.data = ip.data;
+                    localRoot.link = ip.link;
                     return localRoot;
                 }
             }
@@ -299,14 +385,14 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
      *
      * @param parent The parent of possible inorder
      *               predecessor (ip)
-     * @return The data in the ip
+     * @return The ip node, holding both its data and link
      * @post The inorder predecessor is removed from the tree.
      */
-    private E findLargestChild(Node<E,V> parent) {
+    private Node<E,V> findLargestChild(Node<E,V> parent) {
         // If the right child has no right child, it is
         // the inorder predecessor.
         if (parent.right.right == null) {
-            E returnValue = parent.right.data;
+            Node<E,V> returnValue = parent.right;
             parent.right = parent.right.left;
             if (parent.right != null) {
                 parent.right.parent = parent;
@@ -317,5 +403,4 @@ public class BinarySearchTree<E extends Comparable<E>, V extends Comparable<V>>
         }
     }
 
-
 }
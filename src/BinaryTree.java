@@ -2,6 +2,9 @@
 
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 
 /**
@@ -177,11 +180,36 @@ public class BinaryTree<E,V> implements Serializable {
      *
      */
     public String inOrder(StringBuilder sb, boolean valueOrkey) {
-        inOrder(root,sb,valueOrkey);
-        sb.delete(sb.length()-2, sb.length()); // trims last ", "
+        // the separator is written before every entry but the first, so nothing has to be trimmed
+        boolean first = true;
+        Iterator<Node<E,V>> it = inOrderIterator();
+        while (it.hasNext()) {
+            Node<E,V> node = it.next();
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            if (valueOrkey) {
+                sb.append('(').append(node.link).append(", ").append(node.data).append(')');
+            } else {
+                sb.append('(').append(node.data).append(", ").append(node.link).append(')');
+            }
+        }
         return sb.toString();
     }
 
+    /**
+     * Returns an iterator over the nodes of the tree in inorder.
+     * Nodes are produced lazily, so the traversal can be merged with other
+     * trees without first copying the whole tree.
+     * The tree must not be modified while the iterator is in use.
+     *
+     * @return an iterator visiting the nodes in ascending data order
+     */
+    Iterator<Node<E,V>> inOrderIterator() {
+        return new InOrderIterator<E,V>(root, null, null);
+    }
+
     /**
      * Determine whether this tree is a leaf.
      *
@@ -192,28 +220,63 @@ public class BinaryTree<E,V> implements Serializable {
     }
 
     /**
-     * Performs an inorder traversal and subsequently adds the data and link to a string builder.
-     * The string builder is appended in (data,link) format if the tree passed is the keyTree
-     * @param node  The local root
-     * @param sb    The string buffer to save the output
-     * @param valueTree boolean check to see whether the passed tree is the value tree or the key tree
-     * 
+     * Stack based inorder iterator, so that deep trees do not recurse.
+     * It can be limited to the data in [from, to), subtrees outside the range are never visited.
      */
-     private void inOrder(Node<E,V> node,StringBuilder sb , boolean valueTree) {
-        if (node != null) {
-            if(valueTree==false){
-                inOrder(node.left,sb,valueTree);
-                sb.append("("+node.data+ ", " + node.link+"), ");
-                inOrder(node.right, sb,valueTree);
+    static class InOrderIterator<E,V> implements Iterator<Node<E,V>> {
+
+        /**
+         * Nodes whose left subtree has been pushed but which are not yet visited
+         */
+        private final ArrayDeque<Node<E,V>> stack = new ArrayDeque<Node<E,V>>();
+        private final Comparable<? super E> to;
+
+        /**
+         * Construct an iterator starting at the smallest node below root not less than from
+         *
+         * @param root The root of the tree to iterate
+         * @param from Smallest data to visit, inclusive, or null for no lower bound
+         * @param to   Data to stop at, exclusive, or null for no upper bound
+         */
+        InOrderIterator(Node<E,V> root, Comparable<? super E> from, Comparable<? super E> to) {
+            this.to = to;
+            Node<E,V> node = root;
+            while (node != null) {
+                if (from != null && from.compareTo(node.data) > 0) {
+                    // node and its left subtree are below the range
+                    node = node.right;
+                } else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+        }
+
+        /**
+         * Pushes the node and its chain of left children onto the stack
+         *
+         * @param node The local root
+         */
+        private void pushLeft(Node<E,V> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
             }
-            else{
-                inOrder(node.left,sb,valueTree);
-                sb.append("("+node.link+ ", " + node.data+"), ");
-                inOrder(node.right, sb,valueTree);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty() && (to == null || to.compareTo(stack.peek().data) > 0);
+        }
+
+        @Override
+        public Node<E,V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-        } 
-        else {
-            return;
+            Node<E,V> node = stack.pop();
+            pushLeft(node.right);
+            return node;
         }
     }
 
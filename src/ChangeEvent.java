@@ -0,0 +1,61 @@
+/**
+ * An immutable record of one successful mutation of a BidirectionalTreeMap, as read from its ChangeFeed.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class ChangeEvent<K, V> {
+
+    /**
+     * The kind of mutation
+     */
+    public enum Op {
+        PUT,
+        REMOVE
+    }
+
+    private final Op op;
+    private final K key;
+    private final V value;
+    private final long sequence;
+
+    /**
+     * Construct an event
+     * @param op
+     * @param key
+     * @param value the value that was put or removed
+     * @param sequence position of the event in the feed
+     */
+    public ChangeEvent(Op op, K key, V value, long sequence) {
+        this.op = op;
+        this.key = key;
+        this.value = value;
+        this.sequence = sequence;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns a string representation of the event.
+     *
+     * @return A string in the form "#sequence PUT (key, value)"
+     */
+    @Override
+    public String toString() {
+        return ("#" + sequence + " " + op + " (" + key + ", " + value + ")");
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single producer, multi consumer feed of the mutations of a BidirectionalTreeMap.
+ * Events are written into a preallocated ring buffer. The writer never waits for consumers:
+ * once the ring wraps around, the oldest events are overwritten and a consumer that had not
+ * read them yet is told it fell behind instead of holding the writer back.
+ * Every consumer keeps its own position, so any number of them can read without locking.
+ * Events are only kept while at least one subscription is open. Without one, publishing only
+ * counts the sequence up, and the slots written meanwhile are emptied so they do not keep removed keys and values alive.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class ChangeFeed<K, V> {
+
+    /**
+     * Slot sequence of a slot that holds no event
+     */
+    private static final long EMPTY = -2;
+
+    /**
+     * Slot sequence while the writer rewrites a slot
+     */
+    private static final long WRITING = -1;
+
+    /**
+     * Class to encapsulate a slot of the ring buffer.
+     * The sequence is cleared while the slot is rewritten, readers check it before and after reading the fields.
+     */
+    private static class Slot<K, V> {
+        volatile long sequence = EMPTY;
+        volatile ChangeEvent.Op op;
+        volatile K key;
+        volatile V value;
+    }
+
+    private final Slot<K,V>[] ring;
+    private final int mask;
+    /**
+     * Sequence of the last published event, -1 if nothing was published yet
+     */
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicInteger subscribers = new AtomicInteger();
+    /**
+     * Writer only: sequence of the next event
+     */
+    private long nextSequence;
+    /**
+     * Writer only: sequence of the first event written since the ring was last emptied, -1 if it holds none
+     */
+    private long retainedFrom = -1;
+
+    /**
+     * Construct an empty feed
+     * @param capacity number of events kept in the ring, must be a power of two
+     * @throws IllegalArgumentException if capacity is not a positive power of two
+     */
+    @SuppressWarnings("unchecked")
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        ring = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Slot<K,V>();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Publishes an event. Must only be called by the single writer of the map.
+     * @param op
+     * @param key
+     * @param value
+     */
+    void publish(ChangeEvent.Op op, K key, V value) {
+        long seq = nextSequence++;
+        if (subscribers.get() == 0) {
+            if (retainedFrom >= 0) {
+                clear(seq);
+            }
+            cursor.lazySet(seq);
+            return;
+        }
+        if (retainedFrom < 0) {
+            retainedFrom = seq;
+        }
+        Slot<K,V> slot = ring[(int) seq & mask];
+        slot.sequence = WRITING;
+        slot.op = op;
+        slot.key = key;
+        slot.value = value;
+        slot.sequence = seq;
+        cursor.lazySet(seq);
+    }
+
+    /**
+     * Drops the events of the ring once the last subscription was closed. Only the slots written since
+     * the ring was last emptied are visited, so the writer pays at most once per event it kept.
+     * @param end sequence following the last event written
+     */
+    private void clear(long end) {
+        for (long seq = Math.max(retainedFrom, end - ring.length); seq < end; seq++) {
+            Slot<K,V> slot = ring[(int) seq & mask];
+            slot.sequence = WRITING;
+            slot.op = null;
+            slot.key = null;
+            slot.value = null;
+            slot.sequence = EMPTY;
+        }
+        retainedFrom = -1;
+    }
+
+    /**
+     * @return the sequence of the last published event, -1 if nothing was published yet
+     */
+    public long lastSequence() {
+        return cursor.get();
+    }
+
+    /**
+     * @return the smallest sequence that can still be read while subscriptions were open
+     */
+    public long oldestSequence() {
+        return Math.max(0, cursor.get() - mask);
+    }
+
+    /**
+     * @return the number of open subscriptions
+     */
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    /**
+     * @return a subscription that starts with the next event published
+     */
+    public Subscription subscribe() {
+        subscribers.incrementAndGet();
+        long start = cursor.get() + 1;
+        // the writer may have read the old count and published start without keeping it, it is skipped then
+        return new Subscription(start, start);
+    }
+
+    /**
+     * Subscribes from an earlier sequence. Only events published while another subscription was open can be read.
+     * @param fromSequence sequence of the first event to read
+     * @return a subscription that starts at the given sequence
+     * @throws IllegalArgumentException if fromSequence is negative
+     */
+    public Subscription subscribe(long fromSequence) {
+        if (fromSequence < 0) {
+            throw new IllegalArgumentException("fromSequence must not be negative");
+        }
+        subscribers.incrementAndGet();
+        return new Subscription(fromSequence, -1);
+    }
+
+    /**
+     * The read position of one consumer. A subscription must only be used by one thread at a time,
+     * and should be closed once it is no longer read, so the writer can stop keeping events.
+     */
+    public class Subscription implements AutoCloseable {
+
+        private long next;
+        /**
+         * A sequence that may be skipped if it was not kept, -1 if none
+         */
+        private final long skippable;
+        private boolean closed;
+
+        private Subscription(long next, long skippable) {
+            this.next = next;
+            this.skippable = skippable;
+        }
+
+        /**
+         * Reads the next event
+         * @return the next event or null if the consumer has read everything published so far
+         * @throws IllegalStateException if the next event was overwritten because the consumer fell behind,
+         *                               or was published while no subscription was open
+         */
+        public ChangeEvent<K,V> poll() {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("subscription is closed");
+                }
+                if (next > cursor.get()) {
+                    return null;
+                }
+                Slot<K,V> slot = ring[(int) next & mask];
+                long before = slot.sequence;
+                ChangeEvent.Op op = slot.op;
+                K key = slot.key;
+                V value = slot.value;
+                long after = slot.sequence;
+                if (before == next && after == next) {
+                    return new ChangeEvent<K,V>(op, key, value, next++);
+                }
+                if (next == skippable && before < next && after < next) {
+                    // published before this subscription was counted, so the writer did not keep it
+                    next++;
+                    continue;
+                }
+                if (before == WRITING || before > next || after != before) {
+                    throw new IllegalStateException("consumer fell behind, event " + next + " was overwritten");
+                }
+                throw new IllegalStateException("event " + next + " was published while no subscription was open");
+            }
+        }
+
+        /**
+         * @return the sequence of the next event this subscription reads
+         */
+        public long nextSequence() {
+            return next;
+        }
+
+        /**
+         * @return the number of published events this subscription has not read yet
+         */
+        public long lag() {
+            return Math.max(0, cursor.get() + 1 - next);
+        }
+
+        /**
+         * Stops the subscription. Once no subscription is open the writer stops keeping events.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                subscribers.decrementAndGet();
+            }
+        }
+    }
+}
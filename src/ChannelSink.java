@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffers an export on its way to a WritableByteChannel.
+ * Every thread reuses one small direct buffer, so an export needs the same memory whatever the size of the map.
+ * @author Ceyhun Ozbel
+ */
+class ChannelSink implements Appendable {
+
+    /**
+     * Size of the direct buffer in bytes
+     */
+    static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * High surrogate left over by the last append, 0 if none
+     */
+    private char pendingHigh;
+
+    /**
+     * Construct a sink writing to the channel through the buffer of the current thread
+     * @param channel
+     */
+    ChannelSink(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer = BUFFER.get();
+        buffer.clear();
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        CharSequence chars = csq == null ? "null" : csq;
+        if (pendingHigh != 0) {
+            // complete the surrogate pair split across two appends
+            chars = new StringBuilder(chars.length() + 1).append(pendingHigh).append(chars);
+            pendingHigh = 0;
+        }
+        CharBuffer in = CharBuffer.wrap(chars);
+        while (encoder.encode(in, buffer, false).isOverflow()) {
+            drain();
+        }
+        if (in.hasRemaining()) {
+            // only a high surrogate at the very end is left, its low half comes with the next append
+            pendingHigh = in.get();
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        return append((csq == null ? "null" : csq).subSequence(start, end));
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (c < 0x80 && pendingHigh == 0) {
+            ensureRemaining(1);
+            buffer.put((byte) c);
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    /**
+     * Writes the UTF-8 bytes of s preceded by their count as a big endian int
+     * @param s
+     * @throws IOException if the channel throws
+     */
+    void writeLengthPrefixed(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(4);
+        buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Writes everything still buffered to the channel
+     * @throws IOException if the channel throws
+     */
+    void flush() throws IOException {
+        CharBuffer in = CharBuffer.wrap(pendingHigh == 0 ? "" : String.valueOf(pendingHigh));
+        pendingHigh = 0;
+        while (encoder.encode(in, buffer, true).isOverflow()) {
+            drain();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+        drain();
+        encoder.reset();
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,102 @@
+import java.io.IOException;
+
+/**
+ * Formats an entry is written in when a BidirectionalTreeMap is exported.
+ * Entries are always written as (key, value), whichever ordering is exported.
+ * @author Ceyhun Ozbel
+ */
+public enum ExportFormat {
+
+    /**
+     * The form of inOrderTraverseByKeys(): "(apple, 3), (banana, 5)"
+     */
+    TEXT {
+        @Override
+        void append(Appendable out, Object key, Object value, boolean first) throws IOException {
+            if (!first) {
+                out.append(", ");
+            }
+            out.append('(').append(String.valueOf(key)).append(", ").append(String.valueOf(value)).append(')');
+        }
+    },
+
+    /**
+     * One "key,value" line per entry. Fields holding a comma, quote or line break are quoted.
+     */
+    CSV {
+        @Override
+        void append(Appendable out, Object key, Object value, boolean first) throws IOException {
+            appendField(out, String.valueOf(key));
+            out.append(',');
+            appendField(out, String.valueOf(value));
+            out.append('\n');
+        }
+    },
+
+    /**
+     * For every entry the UTF-8 bytes of key and value, each preceded by its length as a big endian int.
+     * Can only be written to a WritableByteChannel.
+     */
+    BINARY {
+        @Override
+        void append(Appendable out, Object key, Object value, boolean first) {
+            throw new IllegalArgumentException("BINARY can only be exported to a WritableByteChannel");
+        }
+
+        @Override
+        void write(ChannelSink sink, Object key, Object value, boolean first) throws IOException {
+            sink.writeLengthPrefixed(String.valueOf(key));
+            sink.writeLengthPrefixed(String.valueOf(value));
+        }
+    };
+
+    /**
+     * Appends one entry as text
+     * @param out
+     * @param key
+     * @param value
+     * @param first true for the first entry of the export
+     * @throws IOException if out throws
+     */
+    abstract void append(Appendable out, Object key, Object value, boolean first) throws IOException;
+
+    /**
+     * Writes one entry to a channel, text formats are encoded as UTF-8
+     * @param sink
+     * @param key
+     * @param value
+     * @param first true for the first entry of the export
+     * @throws IOException if the channel throws
+     */
+    void write(ChannelSink sink, Object key, Object value, boolean first) throws IOException {
+        append(sink, key, value, first);
+    }
+
+    /**
+     * Appends a CSV field, quoting it if needed
+     * @param out
+     * @param field
+     * @throws IOException if out throws
+     */
+    private static void appendField(Appendable out, String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(field);
+            return;
+        }
+        out.append('"');
+        // copy the runs between quotes whole and double every quote
+        int start = 0;
+        int quoteAt;
+        while ((quoteAt = field.indexOf('"', start)) >= 0) {
+            out.append(field, start, quoteAt + 1).append('"');
+            start = quoteAt + 1;
+        }
+        out.append(field, start, field.length());
+        out.append('"');
+    }
+}
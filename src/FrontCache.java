@@ -0,0 +1,116 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small lossy cache in front of one direction of a BidirectionalTreeMap.
+ * Every lookup probes a single slot chosen by hash. A new entry simply replaces whatever was in its slot,
+ * so the cache never has to be maintained beyond invalidating entries that were removed from the map.
+ * Slots hold immutable entries, so any number of threads can read and fill the cache at the same time.
+ * @param <A> type looked up
+ * @param <B> type returned
+ * @author Ceyhun Ozbel
+ */
+public class FrontCache<A extends Comparable<A>, B> {
+
+    /**
+     * Class to encapsulate a cached association.
+     */
+    private static class Entry<A, B> {
+        final A from;
+        final B to;
+
+        Entry(A from, B to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry<A,B>> slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Construct an empty cache
+     * @param capacity number of slots, must be a power of two
+     * @throws IllegalArgumentException if capacity is not a positive power of two
+     */
+    public FrontCache(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        slots = new AtomicReferenceArray<Entry<A,B>>(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Looks the object up with a single probe
+     * @param from
+     * @return the cached association or null on a miss
+     */
+    B get(A from) {
+        Entry<A,B> entry = slots.get(slot(from));
+        if (entry != null && entry.from.compareTo(from) == 0) {
+            hits.increment();
+            return entry.to;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches an association, replacing the entry in its slot
+     * @param from
+     * @param to
+     */
+    void put(A from, B to) {
+        slots.set(slot(from), new Entry<A,B>(from, to));
+    }
+
+    /**
+     * Drops the cached association of the object, if any
+     * @param from
+     */
+    void invalidate(A from) {
+        int slot = slot(from);
+        Entry<A,B> entry = slots.get(slot);
+        if (entry != null && entry.from.compareTo(from) == 0) {
+            slots.compareAndSet(slot, entry, null);
+        }
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of lookups answered by the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to descend the tree
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of lookups answered by the cache, 0 if there were none
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private int slot(A from) {
+        int h = from.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
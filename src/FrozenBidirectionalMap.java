@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable bidirectional map built by BidirectionalTreeMap.freeze().
+ * Keys and values are each stored in one array in Eytzinger (BFS) layout: the children of slot i are at 2i and 2i+1.
+ * A search walks down the implicit tree without branching on the comparison, and the slots it touches next
+ * lie close together, so large maps cause far fewer cache misses than linked nodes.
+ * Two int arrays link every key slot to the slot of its value and back, and two more list the slots
+ * in ascending order, so ordered scans are linear walks over an array.
+ * Compared to the two trees of nodes this needs two object arrays and four int arrays in total.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class FrozenBidirectionalMap<K extends Comparable<K>, V extends Comparable<V>> {
+
+    private final int size;
+    /**
+     * Keys in Eytzinger layout, slot 0 is unused
+     */
+    private final Object[] keys;
+    /**
+     * Values in Eytzinger layout, slot 0 is unused
+     */
+    private final Object[] values;
+    /**
+     * Slot in values of the value of the key in the same slot of keys
+     */
+    private final int[] keyToValue;
+    /**
+     * Slot in keys of the key of the value in the same slot of values
+     */
+    private final int[] valueToKey;
+    /**
+     * Slot in keys of the key of every rank, in ascending key order
+     */
+    private final int[] keySlots;
+    /**
+     * Slot in values of the value of every rank, in ascending value order
+     */
+    private final int[] valueSlots;
+
+    /**
+     * Construct a frozen map from the keyTree of a live map. Both orderings are built from the key nodes,
+     * the values being the links of the keys, so the value side always holds exactly the same associations.
+     * @param keyTree
+     */
+    FrozenBidirectionalMap(BinarySearchTree<K,V> keyTree) {
+        List<K> sortedKeys = new ArrayList<K>();
+        List<V> links = new ArrayList<V>();
+        Iterator<BinaryTree.Node<K,V>> keyNodes = keyTree.inOrderIterator();
+        while (keyNodes.hasNext()) {
+            BinaryTree.Node<K,V> node = keyNodes.next();
+            sortedKeys.add(node.data);
+            links.add(node.link);
+        }
+        size = sortedKeys.size();
+        keys = new Object[size + 1];
+        values = new Object[size + 1];
+        keyToValue = new int[size + 1];
+        valueToKey = new int[size + 1];
+
+        keySlots = new int[size];
+        fill(keys, sortedKeys.toArray(), keySlots, 1, 0);
+
+        // order the key ranks by their values to lay out the value side
+        Integer[] byValue = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byValue[i] = i;
+        }
+        Arrays.sort(byValue, (a, b) -> links.get(a).compareTo(links.get(b)));
+        Object[] sortedValues = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sortedValues[i] = links.get(byValue[i]);
+        }
+        valueSlots = new int[size];
+        fill(values, sortedValues, valueSlots, 1, 0);
+
+        for (int i = 0; i < size; i++) {
+            int keySlot = keySlots[byValue[i]];
+            keyToValue[keySlot] = valueSlots[i];
+            valueToKey[valueSlots[i]] = keySlot;
+        }
+    }
+
+    /**
+     * Places sorted objects into Eytzinger layout by an inorder walk of the implicit tree
+     * @param layout the array to fill
+     * @param sorted the objects in ascending order
+     * @param slots receives the slot every object of sorted was placed in
+     * @param slot the local root
+     * @param next index of the next object of sorted to place
+     * @return index of the next object to place after the subtree was filled
+     */
+    private static int fill(Object[] layout, Object[] sorted, int[] slots, int slot, int next) {
+        if (slot >= layout.length) {
+            return next;
+        }
+        next = fill(layout, sorted, slots, 2 * slot, next);
+        slots[next] = slot;
+        layout[slot] = sorted[next++];
+        return fill(layout, sorted, slots, 2 * slot + 1, next);
+    }
+
+    /**
+     * Searches an Eytzinger array. The loop only computes the next slot from the sign of the comparison,
+     * then the trailing right turns are undone to find the slot of the smallest element not less than target.
+     * @param layout
+     * @param target
+     * @return the slot of target or 0 if it does not exist
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> int search(Object[] layout, T target) {
+        int n = layout.length - 1;
+        int slot = 1;
+        while (slot <= n) {
+            slot = (slot << 1) | (((T) layout[slot]).compareTo(target) >>> 31);
+        }
+        slot >>>= Integer.numberOfTrailingZeros(~slot) + 1;
+        if (slot != 0 && ((T) layout[slot]).compareTo(target) == 0) {
+            return slot;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value associated with a key in O(logn) time.
+     * @param key
+     * @return value corresponding to key or null if the key does not exist in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(K key) {
+        int slot = search(keys, key);
+        return slot == 0 ? null : (V) values[keyToValue[slot]];
+    }
+
+    /**
+     * Returns the key associated with a value in O(logn) time.
+     * @param value
+     * @return key or null if the value does not exist in the map
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(V value) {
+        int slot = search(values, value);
+        return slot == 0 ? null : (K) keys[valueToKey[slot]];
+    }
+
+    /**
+     * Checks if the key exists in the map
+     * @param key
+     * @return true if key was found
+     */
+    public boolean containsKey(K key) {
+        return search(keys, key) != 0;
+    }
+
+    /**
+     * Checks if the value exists in the map
+     * @param value
+     * @return true if found
+     */
+    public boolean containsValue(V value) {
+        return search(values, value) != 0;
+    }
+
+    /**
+     * @return the number of key/value associations contained in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * An inorder traversal of the map ordered by the keys, walking the key slots in rank order
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByKeys()
+     */
+    public String inOrderTraverseByKeys() {
+        StringBuilder sb = new StringBuilder();
+        for (int slot : keySlots) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append('(').append(keys[slot]).append(", ").append(values[keyToValue[slot]]).append(')');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An inorder traversal of the map ordered by values, walking the value slots in rank order
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByValues()
+     */
+    public String inOrderTraverseByValues() {
+        StringBuilder sb = new StringBuilder();
+        for (int slot : valueSlots) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append('(').append(keys[valueToKey[slot]]).append(", ").append(values[slot]).append(')');
+        }
+        return sb.toString();
+    }
+}
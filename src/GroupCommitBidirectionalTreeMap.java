@@ -0,0 +1,385 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Wraps a BidirectionalTreeMap with an asynchronous mutation API.
+ * Submitted puts and removes are queued and applied by a single applier thread in batches,
+ * so many writer threads share one lock acquisition instead of each taking the lock themselves.
+ * Batches are sorted by key before they are applied, which keeps neighbouring tree nodes together.
+ * Only operations that commute are reordered, so every future completes with the result put or remove
+ * would have returned had the operations been called one by one in the order they were submitted.
+ * Futures are completed on an executor, not on the applier thread, so stages depending on them
+ * (thenApply, thenRun, ...) never hold up later batches. Futures of different operations may therefore
+ * complete in any order, even though the operations were applied in order.
+ * Reads take a shared lock and always see whole batches.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class GroupCommitBidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<V>> implements AutoCloseable {
+
+    /**
+     * Default maximum number of operations applied under one lock acquisition
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    /**
+     * Default time in microseconds the applier waits for a batch to fill up
+     */
+    public static final long DEFAULT_MAX_LINGER_MICROS = 100;
+
+    /**
+     * Class to encapsulate a queued put or remove.
+     */
+    private static class Op<K, V> {
+        final K key;
+        final V value;
+        final CompletableFuture<Boolean> putResult;
+        final CompletableFuture<V> removeResult;
+        /**
+         * Set by the applier: the result of put or remove, or the exception it threw
+         */
+        Object result;
+        RuntimeException error;
+
+        Op(K key, V value, CompletableFuture<Boolean> putResult, CompletableFuture<V> removeResult) {
+            this.key = key;
+            this.value = value;
+            this.putResult = putResult;
+            this.removeResult = removeResult;
+        }
+    }
+
+    /**
+     * Enqueued by close() to tell the applier to finish
+     */
+    private final Op<K,V> stop = new Op<K,V>(null, null, null, null);
+
+    private final BidirectionalTreeMap<K,V> map;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final LinkedBlockingQueue<Op<K,V>> queue = new LinkedBlockingQueue<Op<K,V>>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Executor completer;
+    private final Thread applier;
+    private volatile boolean closed;
+
+    /**
+     * constructor wraps an empty map with the default batch size and linger
+     */
+    public GroupCommitBidirectionalTreeMap() {
+        this(new BidirectionalTreeMap<K,V>(), DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * constructor wraps the given map and starts the applier thread.
+     * The map must not be modified through any other reference afterwards.
+     * @param map the map receiving the mutations
+     * @param maxBatchSize maximum number of operations applied per batch
+     * @param maxLinger how long the applier waits for more operations once a batch was started
+     * @param unit unit of maxLinger
+     * @throws IllegalArgumentException if maxBatchSize is smaller than 1 or maxLinger is negative
+     */
+    public GroupCommitBidirectionalTreeMap(BidirectionalTreeMap<K,V> map, int maxBatchSize, long maxLinger, TimeUnit unit) {
+        this(map, maxBatchSize, maxLinger, unit, new CompletableFuture<Void>().defaultExecutor());
+    }
+
+    /**
+     * constructor wraps the given map and starts the applier thread.
+     * The map must not be modified through any other reference afterwards.
+     * @param map the map receiving the mutations
+     * @param maxBatchSize maximum number of operations applied per batch
+     * @param maxLinger how long the applier waits for more operations once a batch was started
+     * @param unit unit of maxLinger
+     * @param completer executor completing the futures, the default is the one of async CompletableFuture stages
+     * @throws IllegalArgumentException if maxBatchSize is smaller than 1 or maxLinger is negative
+     */
+    public GroupCommitBidirectionalTreeMap(BidirectionalTreeMap<K,V> map, int maxBatchSize, long maxLinger, TimeUnit unit,
+                                           Executor completer) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        if (maxLinger < 0) {
+            throw new IllegalArgumentException("maxLinger must not be negative");
+        }
+        this.map = map;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = unit.toNanos(maxLinger);
+        this.completer = completer;
+        applier = new Thread(this::applyLoop, "bidirectional-map-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    /**
+     * Queues the key and value association to be added to the map.
+     * @param key
+     * @param value
+     * @return a future completing with the result BidirectionalTreeMap.put() returns
+     * @throws IllegalStateException if the map was closed
+     */
+    public CompletableFuture<Boolean> putAsync(K key, V value) {
+        CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+        submit(new Op<K,V>(key, value, result, null));
+        return result;
+    }
+
+    /**
+     * Queues the key to be removed from the map.
+     * @param key
+     * @return a future completing with the result BidirectionalTreeMap.remove() returns
+     * @throws IllegalStateException if the map was closed
+     */
+    public CompletableFuture<V> removeAsync(K key) {
+        CompletableFuture<V> result = new CompletableFuture<V>();
+        submit(new Op<K,V>(key, null, null, result));
+        return result;
+    }
+
+    /**
+     * Returns the value associated with a key.
+     * @param key
+     * @return value corresponding to key or null if the key does not exist in the map
+     */
+    public V getValue(K key) {
+        lock.readLock().lock();
+        try {
+            return map.getValue(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the key associated with a value.
+     * @param value
+     * @return key or null if the value does not exist in the map
+     */
+    public K getKey(V value) {
+        lock.readLock().lock();
+        try {
+            return map.getKey(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the key exists in the map
+     * @param key
+     * @return true if key was found
+     */
+    public boolean containsKey(K key) {
+        return getValue(key) != null;
+    }
+
+    /**
+     * Checks if the value exists in the map
+     * @param value
+     * @return true if found
+     */
+    public boolean containsValue(V value) {
+        return getKey(value) != null;
+    }
+
+    /**
+     * @return the number of key/value associations contained in the map
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return map.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops accepting new operations, applies everything already queued and waits for the applier to finish.
+     * The futures of the last operations may still be completing on the completer when close returns.
+     * When called on the applier thread itself, e.g. by a completer running tasks directly, it does not wait.
+     * @throws InterruptedException if interrupted while waiting for the applier
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (!closed) {
+            closed = true;
+            queue.add(stop);
+        }
+        if (Thread.currentThread() != applier) {
+            applier.join();
+        }
+    }
+
+    /**
+     * Enqueues an operation. An operation that raced with close() and was not picked up by the applier is failed.
+     * @param op
+     */
+    private void submit(Op<K,V> op) {
+        if (closed) {
+            throw new IllegalStateException("map is closed");
+        }
+        queue.add(op);
+        if (closed && queue.remove(op)) {
+            fail(op, new IllegalStateException("map is closed"));
+        }
+    }
+
+    /**
+     * Body of the applier thread. Blocks for the first operation of a batch, then collects more
+     * until the batch is full or maxLinger has passed.
+     */
+    private void applyLoop() {
+        List<Op<K,V>> batch = new ArrayList<Op<K,V>>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                Op<K,V> op = queue.take();
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (op != null) {
+                    if (op == stop) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(op);
+                    if (batch.size() >= maxBatchSize) {
+                        break;
+                    }
+                    op = queue.poll();
+                    if (op == null) {
+                        long wait = deadline - System.nanoTime();
+                        if (wait > 0) {
+                            op = queue.poll(wait, TimeUnit.NANOSECONDS);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            apply(batch);
+            batch.clear();
+        }
+
+        // operations that were enqueued before close() became visible
+        Op<K,V> op;
+        while ((op = queue.poll()) != null) {
+            if (op == stop) {
+                continue;
+            }
+            batch.add(op);
+            if (batch.size() >= maxBatchSize) {
+                apply(batch);
+                batch.clear();
+            }
+        }
+        apply(batch);
+    }
+
+    /**
+     * Applies a batch under a single write lock, then hands the futures to the completer outside the lock.
+     * The batch is cut into runs of operations that commute: operations on different keys commute
+     * unless they touch the same value, so a run ends before an operation touching a value another key
+     * of the run already touched. Every run is sorted by key before it is applied. The sort is stable,
+     * so operations on the same key keep their order, and the results are the same as applying the batch
+     * in submission order.
+     * @param batch
+     */
+    private void apply(List<Op<K,V>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // values touched by the current run, and the key touching them
+            TreeMap<V,K> touched = new TreeMap<V,K>();
+            int start = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Op<K,V> op = batch.get(i);
+                if (op.key == null) {
+                    // fails without touching the map
+                    continue;
+                }
+                V value = op.putResult != null ? op.value : map.getValue(op.key);
+                if (value != null) {
+                    K owner = touched.get(value);
+                    if (owner != null && owner.compareTo(op.key) != 0) {
+                        applyRun(batch.subList(start, i));
+                        start = i;
+                        touched.clear();
+                        if (op.putResult == null) {
+                            value = map.getValue(op.key);
+                        }
+                    }
+                    if (value != null) {
+                        touched.put(value, op.key);
+                    }
+                }
+            }
+            applyRun(batch.subList(start, batch.size()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Op<K,V> op : batch) {
+            completer.execute(() -> {
+                if (op.error != null) {
+                    fail(op, op.error);
+                } else {
+                    complete(op, op.result);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sorts a run of commuting operations by key and applies it, storing the result in every operation
+     * @param run
+     */
+    private void applyRun(List<Op<K,V>> run) {
+        run.sort(Comparator.comparing((Op<K,V> op) -> op.key, Comparator.nullsFirst(Comparator.<K>naturalOrder())));
+        for (Op<K,V> op : run) {
+            try {
+                if (op.putResult != null) {
+                    op.result = map.put(op.key, op.value);
+                } else {
+                    op.result = map.remove(op.key);
+                }
+            } catch (RuntimeException e) {
+                op.error = e;
+            }
+        }
+    }
+
+    /**
+     * Completes the future of an operation with its result
+     * @param op
+     * @param result the result of put or remove
+     */
+    @SuppressWarnings("unchecked")
+    private void complete(Op<K,V> op, Object result) {
+        if (op.putResult != null) {
+            op.putResult.complete((Boolean) result);
+        } else {
+            op.removeResult.complete((V) result);
+        }
+    }
+
+    /**
+     * Completes the future of an operation exceptionally
+     * @param op
+     * @param e
+     */
+    private void fail(Op<K,V> op, Throwable e) {
+        if (op.putResult != null) {
+            op.putResult.completeExceptionally(e);
+        } else {
+            op.removeResult.completeExceptionally(e);
+        }
+    }
+}
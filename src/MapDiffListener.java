@@ -0,0 +1,52 @@
+/**
+ * Receives the entries produced while two BidirectionalTreeMaps are walked side by side.
+ * Entries arrive in ascending key order. All methods do nothing by default,
+ * so a listener only has to override the events it is interested in.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public interface MapDiffListener<K, V> {
+
+    /**
+     * The key only exists in the other map
+     * @param key
+     * @param value value of the key in the other map
+     */
+    default void added(K key, V value) {
+    }
+
+    /**
+     * The key only exists in this map
+     * @param key
+     * @param value value of the key in this map
+     */
+    default void removed(K key, V value) {
+    }
+
+    /**
+     * The key exists in both maps with different values
+     * @param key
+     * @param oldValue value of the key in this map
+     * @param newValue value of the key in the other map
+     */
+    default void changed(K key, V oldValue, V newValue) {
+    }
+
+    /**
+     * The key exists in both maps with the same value
+     * @param key
+     * @param value
+     */
+    default void unchanged(K key, V value) {
+    }
+
+    /**
+     * An entry of the other map was left out of a result because its key or its value
+     * is already bound differently, which would break the uniqueness of keys and values.
+     * @param key key of the entry in the other map
+     * @param value value of the entry in the other map
+     */
+    default void conflict(K key, V value) {
+    }
+}
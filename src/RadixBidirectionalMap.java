@@ -0,0 +1,131 @@
+import java.util.List;
+
+/**
+ * A bidirectional map for String keys that indexes the keys in a RadixTree instead of a BST.
+ * Long keys with shared prefixes are stored and compared once per prefix, and keys can be queried by prefix.
+ * The values are stored in a BST with links to their keys, same as in BidirectionalTreeMap.
+ * The map does not allow duplicate keys OR values.
+ * byte[] keys can be stored by converting them with ISO-8859-1, which keeps the unsigned byte order.
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class RadixBidirectionalMap<V extends Comparable<V>> {
+
+    protected int size;
+    public RadixTree<V> keyIndex = new RadixTree<V>();
+    public BinarySearchTree<V,String> valueTree = new BinarySearchTree<V,String>();
+
+    /**
+     * constructor initializes the map with size 0
+     */
+    public RadixBidirectionalMap() {
+        size = 0;
+    }
+
+    /**
+     * Adds the key and value association to the map.
+     * @param key
+     * @param value
+     * @return true if the key/value pair was inserted. If the key or the value already exist in the map, it is not modified and a value of false is returned.
+     */
+    public boolean put(String key, V value) {
+        if (keyIndex.containsKey(key) || valueTree.contains(value)) {
+            return false;
+        }
+        keyIndex.add(key, value);
+        valueTree.add(value, key);
+        size += 1;
+        return true;
+    }
+
+    /**
+     * Returns the value associated with a key in O(key length) time.
+     * @param key
+     * @return value corresponding to key or null if the key does not exist in the map
+     */
+    public V getValue(String key) {
+        return keyIndex.get(key);
+    }
+
+    /**
+     * Returns the key associated with a value in O(logn) time.
+     * @param value
+     * @return key or null if the value does not exist in the map
+     */
+    public String getKey(V value) {
+        return valueTree.returnLink(value);
+    }
+
+    /**
+     * Remove the key and corresponding value from the map (from the key index and the value tree)
+     * @param key
+     * @return value that was removed that corresponds to key or null if the key does not exist in the map.
+     */
+    public V remove(String key) {
+        V value = keyIndex.remove(key);
+        if (value != null) {
+            valueTree.delete(value);
+            size -= 1;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the keys starting with the prefix, e.g. keysWithPrefix("tenant42/")
+     * @param prefix
+     * @return the matching keys in ascending order
+     */
+    public List<String> keysWithPrefix(String prefix) {
+        return keyIndex.keysWithPrefix(prefix);
+    }
+
+    /**
+     * An inorder traversal of the map ordered by the keys
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByKeys()
+     */
+    public String inOrderTraverseByKeys() {
+        StringBuilder sb = new StringBuilder();
+        keyIndex.forEach((key, value) -> {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append('(').append(key).append(", ").append(value).append(')');
+        });
+        return sb.toString();
+    }
+
+    /**
+     * An inorder traversal of the map ordered by values
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByValues()
+     */
+    public String inOrderTraverseByValues() {
+        StringBuilder sb = new StringBuilder();
+        valueTree.inOrder(sb, true);
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the key exists in the map
+     * @param key
+     * @return true if key was found
+     */
+    public boolean containsKey(String key) {
+        return keyIndex.containsKey(key);
+    }
+
+    /**
+     * Checks if the value exists in the map
+     * @param value
+     * @return true if found
+     */
+    public boolean containsValue(V value) {
+        return valueTree.contains(value);
+    }
+
+    /**
+     * @return the number of key/value associations contained in the map
+     */
+    public int size() {
+        return size;
+    }
+}
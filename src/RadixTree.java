@@ -0,0 +1,329 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A compressed trie (radix tree) mapping String keys to values.
+ * Keys sharing a prefix share the nodes holding it, so the prefix is stored and compared only once.
+ * A lookup takes O(key length) time, whatever the number of keys.
+ * Children are kept sorted by their first char, so walks produce keys in String.compareTo order.
+ * Keys may not be null.
+ * @param <V> the value type
+ * @author Ceyhun Ozbel
+ */
+public class RadixTree<V> {
+
+    /**
+     * Class to encapsulate a trie node. The key of a node is the concatenation of the labels from the root down to it.
+     */
+    private static class Node<V> {
+
+        private static final char[] NO_CHARS = new char[0];
+
+        /**
+         * The part of the key between the parent and this node, empty only for the root
+         */
+        String label;
+        V value;
+        boolean hasValue;
+        /**
+         * First char of every child's label, sorted, parallel to children
+         */
+        char[] firsts = NO_CHARS;
+        Node<V>[] children;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node(String label, V value) {
+            this.label = label;
+            this.value = value;
+            this.hasValue = true;
+        }
+
+        /**
+         * @param c
+         * @return index of the child starting with c, or -(insertion point) - 1 if there is none
+         */
+        int indexOf(char c) {
+            return Arrays.binarySearch(firsts, c);
+        }
+
+        @SuppressWarnings("unchecked")
+        void insertChild(int index, Node<V> child) {
+            int n = firsts.length;
+            char[] newFirsts = new char[n + 1];
+            Node<V>[] newChildren = new Node[n + 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(firsts, index, newFirsts, index + 1, n - index);
+            if (n > 0) {
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index, newChildren, index + 1, n - index);
+            }
+            newFirsts[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            firsts = newFirsts;
+            children = newChildren;
+        }
+
+        @SuppressWarnings("unchecked")
+        void removeChild(int index) {
+            int n = firsts.length;
+            char[] newFirsts = new char[n - 1];
+            Node<V>[] newChildren = new Node[n - 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(firsts, index + 1, newFirsts, index, n - index - 1);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, n - index - 1);
+            firsts = newFirsts;
+            children = n == 1 ? null : newChildren;
+        }
+
+        /**
+         * Absorbs the only child of a node that holds no value itself
+         */
+        void mergeWithOnlyChild() {
+            Node<V> child = children[0];
+            label = label + child.label;
+            value = child.value;
+            hasValue = child.hasValue;
+            firsts = child.firsts;
+            children = child.children;
+        }
+    }
+
+    private final Node<V> root = new Node<V>("");
+    private int size;
+
+    /**
+     * Returns the value stored for the key in O(key length) time.
+     * @param key
+     * @return the value or null if the key does not exist
+     */
+    public V get(String key) {
+        Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Checks if the key exists in the tree
+     * @param key
+     * @return true if key was found
+     */
+    public boolean containsKey(String key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Adds the key with its value. Existing keys are not modified.
+     * @param key
+     * @param value
+     * @return true if the key was added, false if it already exists
+     */
+    public boolean add(String key, V value) {
+        Node<V> node = root;
+        int pos = 0;
+        while (true) {
+            if (pos == key.length()) {
+                if (node.hasValue) {
+                    return false;
+                }
+                node.value = value;
+                node.hasValue = true;
+                size += 1;
+                return true;
+            }
+            int index = node.indexOf(key.charAt(pos));
+            if (index < 0) {
+                node.insertChild(-index - 1, new Node<V>(key.substring(pos), value));
+                size += 1;
+                return true;
+            }
+            Node<V> child = node.children[index];
+            int common = commonPrefix(child.label, key, pos);
+            if (common == child.label.length()) {
+                node = child;
+                pos += common;
+                continue;
+            }
+
+            // the key leaves the child's label part way, split the label
+            Node<V> split = new Node<V>(child.label.substring(0, common));
+            child.label = child.label.substring(common);
+            split.insertChild(0, child);
+            node.children[index] = split;
+            pos += common;
+            if (pos == key.length()) {
+                split.value = value;
+                split.hasValue = true;
+            } else {
+                Node<V> leaf = new Node<V>(key.substring(pos), value);
+                split.insertChild(-split.indexOf(leaf.label.charAt(0)) - 1, leaf);
+            }
+            size += 1;
+            return true;
+        }
+    }
+
+    /**
+     * Removes the key. Nodes left without a value are pruned or merged with their only child,
+     * so the tree stays compressed.
+     * @param key
+     * @return the value that was stored for the key or null if the key does not exist
+     */
+    public V remove(String key) {
+        Node<V> parent = null;
+        int indexInParent = -1;
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.indexOf(key.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            Node<V> child = node.children[index];
+            if (!key.startsWith(child.label, pos)) {
+                return null;
+            }
+            parent = node;
+            indexInParent = index;
+            node = child;
+            pos += child.label.length();
+        }
+        if (!node.hasValue) {
+            return null;
+        }
+
+        V removed = node.value;
+        node.value = null;
+        node.hasValue = false;
+        size -= 1;
+        if (parent != null) {
+            if (node.children == null) {
+                parent.removeChild(indexInParent);
+                if (parent != root && !parent.hasValue && parent.children.length == 1) {
+                    parent.mergeWithOnlyChild();
+                }
+            } else if (node.children.length == 1) {
+                node.mergeWithOnlyChild();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every key and its value to the action in ascending key order
+     * @param action
+     */
+    public void forEach(BiConsumer<String, V> action) {
+        walk(root, new StringBuilder(), action);
+    }
+
+    /**
+     * Returns the keys starting with the prefix in ascending order, only the subtree below the prefix is visited.
+     * @param prefix
+     * @return the matching keys
+     */
+    public List<String> keysWithPrefix(String prefix) {
+        List<String> keys = new ArrayList<String>();
+        forEachWithPrefix(prefix, (key, value) -> keys.add(key));
+        return keys;
+    }
+
+    /**
+     * Passes every key starting with the prefix and its value to the action in ascending key order
+     * @param prefix
+     * @param action
+     */
+    public void forEachWithPrefix(String prefix, BiConsumer<String, V> action) {
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(pos));
+            if (index < 0) {
+                return;
+            }
+            Node<V> child = node.children[index];
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common == prefix.length()) {
+                // the prefix ends inside or at the end of the child's label
+                walk(child, new StringBuilder(prefix.substring(0, pos)).append(child.label), action);
+                return;
+            }
+            if (common < child.label.length()) {
+                return;
+            }
+            node = child;
+            pos += common;
+        }
+        walk(node, new StringBuilder(prefix), action);
+    }
+
+    /**
+     * Finds the node holding the key
+     * @param key
+     * @return the node or null if the key does not exist
+     */
+    private Node<V> find(String key) {
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.indexOf(key.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            Node<V> child = node.children[index];
+            if (!key.startsWith(child.label, pos)) {
+                return null;
+            }
+            node = child;
+            pos += child.label.length();
+        }
+        return node.hasValue ? node : null;
+    }
+
+    /**
+     * Recursive preorder walk, a key is visited before all keys it is a prefix of.
+     * @param node the local root
+     * @param key the key of the local root
+     * @param action
+     */
+    private void walk(Node<V> node, StringBuilder key, BiConsumer<String, V> action) {
+        if (node.hasValue) {
+            action.accept(key.toString(), node.value);
+        }
+        if (node.children == null) {
+            return;
+        }
+        int length = key.length();
+        for (Node<V> child : node.children) {
+            key.append(child.label);
+            walk(child, key, action);
+            key.setLength(length);
+        }
+    }
+
+    /**
+     * @param label
+     * @param key
+     * @param pos position in the key the label is compared from
+     * @return the number of leading chars label shares with key starting at pos
+     */
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,441 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread safe bidirectional treemap that partitions the key space into range shards.
+ * Every shard owns its own keyTree and lock, so writers on different key ranges do not block each other.
+ * Values are kept in a separate index striped by hash, where every stripe maps a value straight to its key.
+ * Keys AND values stay unique across all shards, same as in BidirectionalTreeMap. Because a value is only
+ * checked against the other values of its stripe, the hashCode of the value type must be consistent with
+ * its compareTo: values that compare as equal must have the same hash (BigDecimal, for one, does not).
+ * A shard is split at its median key when it grows past the split threshold, or when it is hot:
+ * after writers found its lock taken a number of times, on both sides of its median.
+ * Ingest of ever increasing keys only contends above the median and always lands in the last shard,
+ * so the shard is not split for it and that ingest is still serialized on the shard's lock.
+ * @param <K>
+ * @param <V>
+ * @author Ceyhun Ozbel
+ */
+public class ShardedBidirectionalTreeMap<K extends Comparable<K>, V extends Comparable<V>> {
+
+    /**
+     * Default number of entries a shard may hold before it is split
+     */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 1 << 14;
+
+    /**
+     * Default number of stripes in the value index
+     */
+    public static final int DEFAULT_VALUE_STRIPES = 64;
+
+    /**
+     * Number of contended writes after which a shard is checked for being hot.
+     * It is split if at least a quarter of them fell on each side of its median, otherwise the count starts over.
+     */
+    static final int CONTENTION_SPLIT_THRESHOLD = 64;
+
+    /**
+     * Smallest shard split because it is hot, so that tiny shards are not split over and over
+     */
+    static final int MIN_HOT_SPLIT_SIZE = 64;
+
+    /**
+     * Class to encapsulate a range shard holding all keys in [lower, next shard's lower).
+     */
+    private static class Shard<K extends Comparable<K>, V extends Comparable<V>> {
+
+        /**
+         * Smallest key the shard is responsible for, null for the first shard
+         */
+        final K lower;
+        final BinarySearchTree<K,V> keyTree;
+        final ReentrantLock lock = new ReentrantLock();
+        int size;
+        /**
+         * Number of writes that found the lock of the shard taken, with a key below and not below the median.
+         * The root of the keyTree stands in for the median: a shard built by a split starts out with its median as root.
+         */
+        int contendedBelow;
+        int contendedAbove;
+        /**
+         * Set once the shard was replaced by a split, writers that waited on it must route again
+         */
+        boolean retired;
+
+        Shard(K lower, BinarySearchTree<K,V> keyTree, int size) {
+            this.lower = lower;
+            this.keyTree = keyTree;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Class to encapsulate a stripe of the value index.
+     */
+    private static class Stripe<K extends Comparable<K>, V extends Comparable<V>> {
+        final BinarySearchTree<V,K> valueTree = new BinarySearchTree<V,K>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    /**
+     * Shards ordered by their lower bound. Replaced as a whole whenever a shard is split.
+     */
+    private volatile Shard<K,V>[] shards;
+    private final Stripe<K,V>[] stripes;
+    private final int splitThreshold;
+    private final Object splitLock = new Object();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * constructor initializes the map with a single shard and the default configuration
+     */
+    public ShardedBidirectionalTreeMap() {
+        this(DEFAULT_VALUE_STRIPES, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * constructor initializes the map with a single shard
+     * @param valueStripes number of stripes in the value index, the hashCode of V must be consistent with its compareTo
+     * @param splitThreshold number of entries a shard may hold before it is split in two
+     * @throws IllegalArgumentException if valueStripes is smaller than 1 or splitThreshold is smaller than 2
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedBidirectionalTreeMap(int valueStripes, int splitThreshold) {
+        if (valueStripes < 1) {
+            throw new IllegalArgumentException("valueStripes must be at least 1");
+        }
+        if (splitThreshold < 2) {
+            throw new IllegalArgumentException("splitThreshold must be at least 2");
+        }
+        this.splitThreshold = splitThreshold;
+        stripes = new Stripe[valueStripes];
+        for (int i = 0; i < valueStripes; i++) {
+            stripes[i] = new Stripe<K,V>();
+        }
+        shards = new Shard[] {new Shard<K,V>(null, new BinarySearchTree<K,V>(), 0)};
+    }
+
+    /**
+     * Adds the key and value association to the map.
+     * The key is stored in the keyTree of the shard owning its range, the value in its stripe of the value index.
+     * @param key
+     * @param value
+     * @return true if the key/value pair was inserted. If the key or the value already exist in the map, it is not modified and a value of false is returned.
+     */
+    public boolean put(K key, V value) {
+        Shard<K,V> shard = lockShard(key);
+        try {
+            if (shard.lock.hasQueuedThreads()) {
+                BinaryTree.Node<K,V> median = shard.keyTree.root;
+                if (median != null && key.compareTo(median.data) < 0) {
+                    shard.contendedBelow += 1;
+                } else {
+                    shard.contendedAbove += 1;
+                }
+            }
+            if (shard.keyTree.contains(key)) {
+                return false;
+            }
+            Stripe<K,V> stripe = stripeFor(value);
+            stripe.lock.lock();
+            try {
+                if (!stripe.valueTree.add(value, key)) {
+                    return false;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+            shard.keyTree.add(key, value);
+            shard.size += 1;
+            size.increment();
+            if (shard.size > splitThreshold || isHot(shard)) {
+                split(shard);
+            }
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value associated with a key in O(logn) time.
+     * @param key
+     * @return value corresponding to key or null if the key does not exist in the map
+     */
+    public V getValue(K key) {
+        Shard<K,V> shard = lockShard(key);
+        try {
+            return shard.keyTree.returnLink(key);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the key associated with a value in O(logn) time, only the stripe of the value is locked.
+     * @param value
+     * @return key or null if the value does not exist in the map
+     */
+    public K getKey(V value) {
+        Stripe<K,V> stripe = stripeFor(value);
+        stripe.lock.lock();
+        try {
+            return stripe.valueTree.returnLink(value);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the key and corresponding value from the map (from the shard and the value index)
+     * @param key
+     * @return value that was removed that corresponds to key or null if the key does not exist in the map.
+     */
+    public V remove(K key) {
+        Shard<K,V> shard = lockShard(key);
+        try {
+            V value = shard.keyTree.returnLink(key);
+            if (value == null) {
+                return null;
+            }
+            shard.keyTree.delete(key);
+            shard.size -= 1;
+            Stripe<K,V> stripe = stripeFor(value);
+            stripe.lock.lock();
+            try {
+                stripe.valueTree.delete(value);
+            } finally {
+                stripe.lock.unlock();
+            }
+            size.decrement();
+            return value;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the key exists in the map
+     * @param key
+     * @return true if key was found
+     */
+    public boolean containsKey(K key) {
+        return getValue(key) != null;
+    }
+
+    /**
+     * Checks if the value exists in the map
+     * @param value
+     * @return true if found
+     */
+    public boolean containsValue(V value) {
+        return getKey(value) != null;
+    }
+
+    /**
+     * @return the number of key/value associations contained in the map
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * @return the current number of range shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * An inorder traversal of the map ordered by the keys.
+     * Shards cover disjoint ranges, so they are walked one after the other and each is only locked while it is read.
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByKeys()
+     */
+    public String inOrderTraverseByKeys() {
+        StringBuilder sb = new StringBuilder();
+        for (Shard<K,V> shard : shards) {
+            shard.lock.lock();
+            try {
+                Iterator<BinaryTree.Node<K,V>> it = shard.keyTree.inOrderIterator();
+                while (it.hasNext()) {
+                    sb.append(it.next()).append(", ");
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return trim(sb);
+    }
+
+    /**
+     * An inorder traversal of the map ordered by values.
+     * The stripes of the value index are merged lazily through a priority queue holding the head of every stripe.
+     * @return a string in the same form as BidirectionalTreeMap.inOrderTraverseByValues()
+     */
+    public String inOrderTraverseByValues() {
+        StringBuilder sb = new StringBuilder();
+        for (Stripe<K,V> stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            PriorityQueue<Head<V,K>> heads = new PriorityQueue<Head<V,K>>();
+            for (Stripe<K,V> stripe : stripes) {
+                Iterator<BinaryTree.Node<V,K>> it = stripe.valueTree.inOrderIterator();
+                if (it.hasNext()) {
+                    heads.add(new Head<V,K>(it.next(), it));
+                }
+            }
+            while (!heads.isEmpty()) {
+                Head<V,K> head = heads.poll();
+                sb.append("(").append(head.node.link).append(", ").append(head.node.data).append("), ");
+                if (head.rest.hasNext()) {
+                    heads.add(new Head<V,K>(head.rest.next(), head.rest));
+                }
+            }
+        } finally {
+            for (Stripe<K,V> stripe : stripes) {
+                stripe.lock.unlock();
+            }
+        }
+        return trim(sb);
+    }
+
+    /**
+     * The current node of one stripe during the merge, ordered by the node's data.
+     */
+    private static class Head<E extends Comparable<E>, L> implements Comparable<Head<E,L>> {
+        final BinaryTree.Node<E,L> node;
+        final Iterator<BinaryTree.Node<E,L>> rest;
+
+        Head(BinaryTree.Node<E,L> node, Iterator<BinaryTree.Node<E,L>> rest) {
+            this.node = node;
+            this.rest = rest;
+        }
+
+        @Override
+        public int compareTo(Head<E,L> other) {
+            return node.data.compareTo(other.node.data);
+        }
+    }
+
+    /**
+     * Trims the trailing ", " left by the traversals
+     * @param sb
+     * @return the trimmed string
+     */
+    private static String trim(StringBuilder sb) {
+        if (sb.length() >= 2) {
+            sb.delete(sb.length() - 2, sb.length());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether a shard is worth splitting because of contention. A split only helps when the contended
+     * writes spread over both halves, so once enough of them were counted without that the count starts over.
+     * @param shard must be locked by the caller
+     * @return true if the shard should be split
+     */
+    private static boolean isHot(Shard<?,?> shard) {
+        if (shard.contendedBelow + shard.contendedAbove < CONTENTION_SPLIT_THRESHOLD) {
+            return false;
+        }
+        int quarter = CONTENTION_SPLIT_THRESHOLD / 4;
+        if (shard.size >= MIN_HOT_SPLIT_SIZE && shard.contendedBelow >= quarter && shard.contendedAbove >= quarter) {
+            return true;
+        }
+        shard.contendedBelow = 0;
+        shard.contendedAbove = 0;
+        return false;
+    }
+
+    /**
+     * Finds and locks the shard owning the key. If the shard was split while waiting for its lock the lookup is retried.
+     * @param key
+     * @return the locked shard, the caller has to unlock it
+     */
+    private Shard<K,V> lockShard(K key) {
+        while (true) {
+            Shard<K,V> shard = route(shards, key);
+            shard.lock.lock();
+            if (!shard.retired) {
+                return shard;
+            }
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Binary search for the last shard whose lower bound is not greater than the key
+     * @param table shards ordered by lower bound
+     * @param key
+     * @return the shard owning the key
+     */
+    private static <K extends Comparable<K>, V extends Comparable<V>> Shard<K,V> route(Shard<K,V>[] table, K key) {
+        int low = 1;
+        int high = table.length - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (key.compareTo(table[mid].lower) >= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return table[found];
+    }
+
+    /**
+     * Picks the stripe by hash. Uniqueness is only checked inside a stripe,
+     * so values equal by compareTo must hash alike to meet in the same stripe.
+     * @param value
+     * @return the stripe of the value index responsible for the value
+     */
+    private Stripe<K,V> stripeFor(V value) {
+        int h = value.hashCode();
+        h ^= (h >>> 16);
+        return stripes[(h & 0x7fffffff) % stripes.length];
+    }
+
+    /**
+     * Splits a full or hot shard at its median key into two new shards and publishes them in a new shard table.
+     * The old shard is marked retired, writers blocked on it route again once it is unlocked.
+     * @param shard the shard to split, must be locked by the caller
+     */
+    @SuppressWarnings("unchecked")
+    private void split(Shard<K,V> shard) {
+        List<K> keys = new ArrayList<K>(shard.size);
+        List<V> values = new ArrayList<V>(shard.size);
+        Iterator<BinaryTree.Node<K,V>> it = shard.keyTree.inOrderIterator();
+        while (it.hasNext()) {
+            BinaryTree.Node<K,V> node = it.next();
+            keys.add(node.data);
+            values.add(node.link);
+        }
+        int mid = keys.size() / 2;
+        Shard<K,V> left = new Shard<K,V>(shard.lower, BinarySearchTree.fromSorted(keys.subList(0, mid), values.subList(0, mid)), mid);
+        Shard<K,V> right = new Shard<K,V>(keys.get(mid), BinarySearchTree.fromSorted(keys.subList(mid, keys.size()), values.subList(mid, keys.size())), keys.size() - mid);
+
+        synchronized (splitLock) {
+            Shard<K,V>[] old = shards;
+            Shard<K,V>[] table = new Shard[old.length + 1];
+            int j = 0;
+            for (Shard<K,V> s : old) {
+                if (s == shard) {
+                    table[j++] = left;
+                    table[j++] = right;
+                } else {
+                    table[j++] = s;
+                }
+            }
+            shards = table;
+        }
+        shard.retired = true;
+    }
+}
@@ -3,6 +3,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -128,4 +129,116 @@ public class BidirectionalMapTest {
         assertNull(map.remove("grape"));
         assertEquals(4, map.size());
     }
+
+    @Test
+    public void testRemoveKeepsLinks() {
+        map.put("bread", 7); // inorder predecessor of "carrot" is now a right child
+        assertEquals(4, (int) map.remove("carrot"));
+        assertEquals(7, (int) map.getValue("bread"));
+        assertEquals("bread", map.getKey(7));
+    }
+
+    @Test
+    public void testDiff() {
+        BidirectionalTreeMap<String, Integer> other = new BidirectionalTreeMap<>();
+        other.put("apple", 3);
+        other.put("banana", 9);
+        other.put("kiwi", 8);
+
+        List<String> events = new ArrayList<>();
+        map.diff(other, new MapDiffListener<String, Integer>() {
+            @Override
+            public void added(String key, Integer value) { events.add("+" + key); }
+            @Override
+            public void removed(String key, Integer value) { events.add("-" + key); }
+            @Override
+            public void changed(String key, Integer oldValue, Integer newValue) { events.add("~" + key); }
+            @Override
+            public void unchanged(String key, Integer value) { events.add("=" + key); }
+        });
+        assertEquals(Arrays.asList("=apple", "~banana", "-carrot", "-date", "-eggplant", "-fig", "+kiwi"), events);
+    }
+
+    @Test
+    public void testSetOperations() {
+        BidirectionalTreeMap<String, Integer> other = new BidirectionalTreeMap<>();
+        other.put("apple", 3);
+        other.put("banana", 9);
+        other.put("kiwi", 8);
+        other.put("lime", 4); // value already bound to "carrot"
+
+        List<String> conflicts = new ArrayList<>();
+        MapDiffListener<String, Integer> listener = new MapDiffListener<String, Integer>() {
+            @Override
+            public void conflict(String key, Integer value) { conflicts.add(key); }
+        };
+
+        BidirectionalTreeMap<String, Integer> union = map.union(other, listener);
+        assertEquals(7, union.size());
+        assertEquals(5, (int) union.getValue("banana"));
+        assertEquals("kiwi", union.getKey(8));
+        assertEquals("carrot", union.getKey(4));
+        assertEquals(Arrays.asList("banana", "lime"), conflicts);
+
+        BidirectionalTreeMap<String, Integer> intersection = map.intersection(other);
+        assertEquals("(apple, 3)", intersection.inOrderTraverseByKeys());
+
+        BidirectionalTreeMap<String, Integer> difference = map.difference(other);
+        assertEquals("(eggplant, 1), (fig, 2), (carrot, 4), (date, 6)", difference.inOrderTraverseByValues());
+    }
+
+    @Test
+    public void testUnionAfterRejectedPut() {
+        assertFalse(map.put("apple", 8)); // duplicate key, 8 must not be left in the value tree
+        map.remove("apple");
+        BidirectionalTreeMap<String, Integer> other = new BidirectionalTreeMap<>();
+        other.put("zucchini", 8);
+
+        List<String> conflicts = new ArrayList<>();
+        BidirectionalTreeMap<String, Integer> union = map.union(other, new MapDiffListener<String, Integer>() {
+            @Override
+            public void conflict(String key, Integer value) { conflicts.add(key); }
+        });
+        assertEquals(6, union.size());
+        assertEquals(8, (int) union.getValue("zucchini"));
+        assertTrue(conflicts.isEmpty());
+    }
+
+    @Test
+    public void testFrontCache() {
+        map.enableFrontCache(16);
+        assertEquals(4, (int) map.getValue("carrot"));
+        assertEquals(4, (int) map.getValue("carrot"));
+        assertEquals("fig", map.getKey(2));
+        assertEquals("fig", map.getKey(2));
+        assertEquals(1, map.keyCache().hits());
+        assertEquals(0.5, map.valueCache().hitRate(), 1e-9);
+
+        map.remove("carrot");
+        assertNull(map.getValue("carrot"));
+        assertNull(map.getKey(4));
+        assertTrue(map.put("carrot", 7));
+        assertEquals(7, (int) map.getValue("carrot"));
+    }
+
+    @Test
+    public void testFrontCacheWithEqualObjectsHashingDifferently() {
+        // 1.0 and 1.00 are equal by compareTo but have different hash codes
+        BidirectionalTreeMap<String, BigDecimal> prices = new BidirectionalTreeMap<>();
+        prices.enableFrontCache(16);
+        prices.put("price", new BigDecimal("1.0"));
+        assertEquals("price", prices.getKey(new BigDecimal("1.00")));
+        assertEquals(new BigDecimal("1.0"), prices.remove("price"));
+        assertNull(prices.getKey(new BigDecimal("1.00")));
+        assertFalse(prices.containsValue(new BigDecimal("1.00")));
+        assertEquals(0, prices.size());
+
+        BidirectionalTreeMap<BigDecimal, String> byPrice = new BidirectionalTreeMap<>();
+        byPrice.enableFrontCache(16);
+        byPrice.put(new BigDecimal("1.0"), "price");
+        assertEquals("price", byPrice.getValue(new BigDecimal("1.00")));
+        assertEquals("price", byPrice.remove(new BigDecimal("1.000")));
+        assertNull(byPrice.getValue(new BigDecimal("1.00")));
+        assertFalse(byPrice.containsKey(new BigDecimal("1.00")));
+    }
 }
@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures put throughput of a BidirectionalTreeMap with a change feed read by 0, 1 and 4 consumers,
+ * and the writer time spent publishing right after the last subscription was closed.
+ * Not a test, run it with: java ChangeFeedBenchmark [puts]
+ * @author Ceyhun Ozbel
+ */
+public class ChangeFeedBenchmark {
+
+    private static final int CAPACITY = 1 << 22;
+
+    public static void main(String[] args) throws InterruptedException {
+        int puts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Integer> keys = new ArrayList<Integer>(puts);
+        for (int i = 0; i < puts; i++) {
+            keys.add(i);
+        }
+        // shuffled so the unbalanced trees stay shallow
+        Collections.shuffle(keys);
+
+        for (int round = 0; round < 3; round++) {
+            for (int consumers : new int[] {0, 1, 4}) {
+                double perSecond = throughput(keys, consumers);
+                System.out.printf("round %d, %d consumers: %,.0f puts/s%n", round, consumers, perSecond);
+            }
+        }
+        subscribeCloseCycles(keys, 20);
+    }
+
+    /**
+     * @return puts per second while the given number of consumers keep reading the feed
+     */
+    private static double throughput(List<Integer> keys, int consumers) throws InterruptedException {
+        BidirectionalTreeMap<Integer, Integer> map = new BidirectionalTreeMap<Integer, Integer>();
+        ChangeFeed<Integer, Integer> feed = map.enableChangeFeed(CAPACITY);
+        List<Thread> readers = new ArrayList<Thread>();
+        List<ChangeFeed<Integer, Integer>.Subscription> subscriptions = new ArrayList<ChangeFeed<Integer, Integer>.Subscription>();
+        for (int i = 0; i < consumers; i++) {
+            ChangeFeed<Integer, Integer>.Subscription subscription = feed.subscribe();
+            subscriptions.add(subscription);
+            Thread reader = new Thread(() -> {
+                long read = 0;
+                while (read < keys.size()) {
+                    if (subscription.poll() != null) {
+                        read++;
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            map.put(key, key);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        for (ChangeFeed<Integer, Integer>.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        return keys.size() * 1e9 / elapsed;
+    }
+
+    /**
+     * Opens a subscription, publishes a few events, closes it, and times the next put,
+     * which is the one emptying the ring
+     */
+    private static void subscribeCloseCycles(List<Integer> keys, int cycles) {
+        BidirectionalTreeMap<Integer, Integer> map = new BidirectionalTreeMap<Integer, Integer>();
+        ChangeFeed<Integer, Integer> feed = map.enableChangeFeed(CAPACITY);
+        int next = 0;
+        long total = 0;
+        long worst = 0;
+        for (int i = 0; i < cycles; i++) {
+            ChangeFeed<Integer, Integer>.Subscription subscription = feed.subscribe();
+            for (int j = 0; j < 10; j++) {
+                map.put(keys.get(next), keys.get(next));
+                next++;
+            }
+            subscription.close();
+            long start = System.nanoTime();
+            map.put(keys.get(next), keys.get(next));
+            next++;
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+        }
+        System.out.printf("%d subscribe/close cycles: first put after close %,d ns in total, %,d ns at worst%n",
+                cycles, total, worst);
+    }
+}
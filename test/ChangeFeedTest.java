@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+
+    private BidirectionalTreeMap<String, Integer> map;
+    private ChangeFeed<String, Integer> feed;
+
+    @BeforeEach
+    public void setup(){
+        map = new BidirectionalTreeMap<>();
+        feed = map.enableChangeFeed(4);
+    }
+
+    @Test
+    public void testSuccessfulMutationsArePublished() {
+        ChangeFeed<String, Integer>.Subscription subscription = feed.subscribe();
+        map.put("carrot", 4);
+        map.put("carrot", 10); // rejected, not published
+        assertNull(map.getKey(10));
+        map.remove("carrot");
+        map.remove("grape"); // missing, not published
+
+        ChangeEvent<String, Integer> put = subscription.poll();
+        assertEquals(ChangeEvent.Op.PUT, put.getOp());
+        assertEquals("carrot", put.getKey());
+        assertEquals(4, (int) put.getValue());
+        assertEquals(0, put.getSequence());
+
+        ChangeEvent<String, Integer> remove = subscription.poll();
+        assertEquals(ChangeEvent.Op.REMOVE, remove.getOp());
+        assertEquals(1, remove.getSequence());
+        assertNull(subscription.poll());
+    }
+
+    @Test
+    public void testSubscribeFromSequence() {
+        ChangeFeed<String, Integer>.Subscription keeper = feed.subscribe(); // keeps events in the ring
+        map.put("apple", 3);
+        map.put("banana", 5);
+        map.put("carrot", 4);
+
+        ChangeFeed<String, Integer>.Subscription subscription = feed.subscribe(1);
+        assertEquals(2, subscription.lag());
+        assertEquals("banana", subscription.poll().getKey());
+        assertEquals("carrot", subscription.poll().getKey());
+        assertNull(subscription.poll());
+    }
+
+    @Test
+    public void testSlowConsumerIsDetected() {
+        ChangeFeed<String, Integer>.Subscription subscription = feed.subscribe();
+        for(int i=0; i < 5; i++) {
+            map.put("key" + i, i);
+        }
+        assertEquals(1, feed.oldestSequence());
+        assertThrows(IllegalStateException.class, subscription::poll);
+    }
+
+    @Test
+    public void testNothingIsKeptWithoutSubscription() {
+        map.put("apple", 3);
+        assertEquals(0, feed.lastSequence());
+        assertThrows(IllegalStateException.class, () -> feed.subscribe(0).poll());
+
+        ChangeFeed<String, Integer>.Subscription subscription = feed.subscribe();
+        assertEquals(2, feed.subscriberCount());
+        map.put("banana", 5);
+        assertEquals(1, subscription.poll().getSequence());
+        subscription.close();
+        assertEquals(1, feed.subscriberCount());
+    }
+}
@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExportTest {
+
+    private BidirectionalTreeMap<String, Integer> map;
+
+    @BeforeEach
+    public void setup(){
+        map = new BidirectionalTreeMap<>();
+        String[] keys = {"carrot", "banana", "date", "fig", "eggplant", "apple"};
+        int[] values = {4, 5, 6, 2, 1, 3};
+        for(int i=0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+    }
+
+    @Test
+    public void testTextMatchesTraversal() throws IOException {
+        StringWriter byKeys = new StringWriter();
+        map.exportByKeys(byKeys, ExportFormat.TEXT);
+        assertEquals(map.inOrderTraverseByKeys(), byKeys.toString());
+
+        StringBuilder byValues = new StringBuilder();
+        map.exportByValues(byValues, ExportFormat.TEXT);
+        assertEquals(map.inOrderTraverseByValues(), byValues.toString());
+    }
+
+    @Test
+    public void testRanges() throws IOException {
+        StringBuilder byKeys = new StringBuilder();
+        map.exportByKeys(byKeys, ExportFormat.CSV, "banana", "eggplant");
+        assertEquals("banana,5\ncarrot,4\ndate,6\n", byKeys.toString());
+
+        StringBuilder byValues = new StringBuilder();
+        map.exportByValues(byValues, ExportFormat.TEXT, 5, null);
+        assertEquals("(banana, 5), (date, 6)", byValues.toString());
+    }
+
+    @Test
+    public void testCsvQuoting() throws IOException {
+        BidirectionalTreeMap<String, String> quoted = new BidirectionalTreeMap<>();
+        quoted.put("a,b", "say \"hi\"");
+        StringBuilder out = new StringBuilder();
+        quoted.exportByKeys(out, ExportFormat.CSV);
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\"\n", out.toString());
+    }
+
+    @Test
+    public void testChannelExport() throws IOException {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        map.exportByKeys(Channels.newChannel(text), ExportFormat.TEXT);
+        assertEquals(map.inOrderTraverseByKeys(), text.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        map.exportByValues(Channels.newChannel(binary), ExportFormat.BINARY, null, 2);
+        ByteBuffer in = ByteBuffer.wrap(binary.toByteArray());
+        assertEquals(8, in.getInt());
+        byte[] key = new byte[8];
+        in.get(key);
+        assertEquals("eggplant", new String(key, StandardCharsets.UTF_8));
+        assertEquals(1, in.getInt());
+        assertEquals('1', (char) in.get());
+        assertFalse(in.hasRemaining());
+
+        assertThrows(IllegalArgumentException.class, () -> map.exportByKeys(new StringBuilder(), ExportFormat.BINARY));
+        assertThrows(IllegalArgumentException.class, () -> new BidirectionalTreeMap<String, Integer>().exportByValues(new StringBuilder(), ExportFormat.BINARY));
+    }
+
+    @Test
+    public void testSupplementaryCharactersOnChannel() throws IOException {
+        BidirectionalTreeMap<String, String> emoji = new BidirectionalTreeMap<>();
+        emoji.put("x,\uD83D\uDE00", "\uD83D\uDE00\"");
+
+        StringBuilder expected = new StringBuilder();
+        emoji.exportByKeys(expected, ExportFormat.CSV);
+        assertEquals("\"x,\uD83D\uDE00\",\"\uD83D\uDE00\"\"\"\n", expected.toString());
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        emoji.exportByKeys(Channels.newChannel(csv), ExportFormat.CSV);
+        assertEquals(expected.toString(), csv.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares lookups and ordered scans of a live BidirectionalTreeMap with its frozen copy.
+ * Not a test, run it with: java FrozenBidirectionalMapBenchmark [size]
+ * @author Ceyhun Ozbel
+ */
+public class FrozenBidirectionalMapBenchmark {
+
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Integer> keys = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(i);
+        }
+        // shuffled so the unbalanced trees stay shallow
+        Collections.shuffle(keys, new Random(42));
+        BidirectionalTreeMap<Integer, Integer> live = new BidirectionalTreeMap<Integer, Integer>();
+        for (Integer key : keys) {
+            live.put(key, -key);
+        }
+        FrozenBidirectionalMap<Integer, Integer> frozen = live.freeze();
+
+        int[] probes = new int[LOOKUPS];
+        Random random = new Random(7);
+        for (int i = 0; i < LOOKUPS; i++) {
+            probes[i] = random.nextInt(size);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int probe : probes) {
+                sink += live.getValue(probe) + live.getKey(-probe);
+            }
+            long liveLookups = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int probe : probes) {
+                sink += frozen.getValue(probe) + frozen.getKey(-probe);
+            }
+            long frozenLookups = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += live.inOrderTraverseByKeys().length() + live.inOrderTraverseByValues().length();
+            long liveScans = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += frozen.inOrderTraverseByKeys().length() + frozen.inOrderTraverseByValues().length();
+            long frozenScans = System.nanoTime() - start;
+
+            System.out.printf("round %d: lookups live %,d ns/op, frozen %,d ns/op; scans live %,d ms, frozen %,d ms (%d)%n",
+                    round, liveLookups / (2L * LOOKUPS), frozenLookups / (2L * LOOKUPS),
+                    liveScans / 1_000_000, frozenScans / 1_000_000, sink & 1);
+        }
+    }
+}
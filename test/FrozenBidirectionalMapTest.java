@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrozenBidirectionalMapTest {
+
+    @Test
+    public void testSameReadsAsLiveMap() {
+        BidirectionalTreeMap<String, Integer> map = new BidirectionalTreeMap<>();
+        String[] keys = {"carrot", "banana", "date", "fig", "eggplant", "apple"};
+        int[] values = {4, 5, 6, 2, 1, 3};
+        for(int i=0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+
+        FrozenBidirectionalMap<String, Integer> frozen = map.freeze();
+        assertEquals(6, frozen.size());
+        for(int i=0; i < keys.length; i++) {
+            assertEquals(values[i], (int) frozen.getValue(keys[i]));
+            assertEquals(keys[i], frozen.getKey(values[i]));
+        }
+        assertNull(frozen.getValue("orange"));
+        assertNull(frozen.getKey(28));
+        assertFalse(frozen.containsKey("aardvark"));
+        assertFalse(frozen.containsValue(7));
+        assertEquals(map.inOrderTraverseByKeys(), frozen.inOrderTraverseByKeys());
+        assertEquals(map.inOrderTraverseByValues(), frozen.inOrderTraverseByValues());
+
+        map.remove("carrot"); // the snapshot is not affected
+        assertEquals(4, (int) frozen.getValue("carrot"));
+    }
+
+    @Test
+    public void testEveryShape() {
+        Random random = new Random(7);
+        for(int n=0; n < 40; n++) {
+            BidirectionalTreeMap<Integer, Integer> map = new BidirectionalTreeMap<>();
+            while(map.size() < n) {
+                int key = random.nextInt(1000);
+                map.put(key, -key);
+            }
+            FrozenBidirectionalMap<Integer, Integer> frozen = map.freeze();
+            for(int key=-1; key <= 1000; key++) {
+                assertEquals(map.getValue(key), frozen.getValue(key));
+                assertEquals(map.getKey(-key), frozen.getKey(-key));
+            }
+            assertEquals(map.inOrderTraverseByKeys(), frozen.inOrderTraverseByKeys());
+            assertEquals(map.inOrderTraverseByValues(), frozen.inOrderTraverseByValues());
+        }
+    }
+
+    @Test
+    public void testFreezeAfterRejectedPut() {
+        BidirectionalTreeMap<String, Integer> map = new BidirectionalTreeMap<>();
+        map.put("b", 5);
+        map.put("a", 3);
+        assertFalse(map.put("a", 1)); // duplicate key, must not leave 1 in the value tree
+        assertNull(map.getKey(1));
+
+        FrozenBidirectionalMap<String, Integer> frozen = map.freeze();
+        assertEquals(2, frozen.size());
+        assertEquals(5, (int) frozen.getValue("b"));
+        assertEquals("b", frozen.getKey(5));
+        assertNull(frozen.getKey(1));
+        assertEquals("(a, 3), (b, 5)", frozen.inOrderTraverseByValues());
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitBidirectionalTreeMapTest {
+
+    @Test
+    public void testResultsMatchPutAndRemove() throws Exception {
+        GroupCommitBidirectionalTreeMap<String, Integer> map =
+                new GroupCommitBidirectionalTreeMap<>(new BidirectionalTreeMap<String, Integer>(), 8, 1, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> first = map.putAsync("carrot", 4);
+        CompletableFuture<Boolean> duplicateKey = map.putAsync("carrot", 10);
+        CompletableFuture<Boolean> banana = map.putAsync("banana", 5);
+        CompletableFuture<Integer> removed = map.removeAsync("carrot");
+        CompletableFuture<Integer> missing = map.removeAsync("grape");
+
+        assertTrue(first.get());
+        assertFalse(duplicateKey.get());
+        assertTrue(banana.get());
+        assertEquals(4, (int) removed.get());
+        assertNull(missing.get());
+        assertEquals(1, map.size());
+        assertEquals("banana", map.getKey(5));
+        map.close();
+    }
+
+    @Test
+    public void testManyWriters() throws Exception {
+        GroupCommitBidirectionalTreeMap<Integer, Integer> map = new GroupCommitBidirectionalTreeMap<>();
+        List<CompletableFuture<Boolean>> results = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for(int t=0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for(int i=offset; i < 2000; i += threads.length) {
+                    results.add(map.putAsync(i, -i));
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        for(CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        assertEquals(2000, map.size());
+        assertEquals(1234, (int) map.getKey(-1234));
+        map.close();
+    }
+
+    @Test
+    public void testClosedMapRejectsOperations() throws Exception {
+        GroupCommitBidirectionalTreeMap<String, Integer> map = new GroupCommitBidirectionalTreeMap<>();
+        CompletableFuture<Boolean> pending = map.putAsync("apple", 3);
+        map.close();
+        assertTrue(pending.get(1, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> map.putAsync("fig", 2));
+    }
+
+    @Test
+    public void testSharedValueKeepsSubmissionOrder() throws Exception {
+        GroupCommitBidirectionalTreeMap<String, Integer> map =
+                new GroupCommitBidirectionalTreeMap<>(new BidirectionalTreeMap<String, Integer>(), 8, 50, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> putB = map.putAsync("b", 1);
+        CompletableFuture<Integer> removeB = map.removeAsync("b");
+        CompletableFuture<Boolean> putA = map.putAsync("a", 1);
+
+        assertTrue(putB.get());
+        assertEquals(1, (int) removeB.get());
+        assertTrue(putA.get());
+        assertEquals("a", map.getKey(1));
+        map.close();
+    }
+
+    @Test
+    public void testSlowCallbackDoesNotDelayLaterBatches() throws Exception {
+        // the linger keeps the first batch open long enough to attach the callback before it completes
+        GroupCommitBidirectionalTreeMap<String, Integer> map =
+                new GroupCommitBidirectionalTreeMap<>(new BidirectionalTreeMap<String, Integer>(), 8, 200, TimeUnit.MILLISECONDS);
+        CountDownLatch release = new CountDownLatch(1);
+        map.putAsync("carrot", 4).thenRun(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(300);
+        assertTrue(map.putAsync("banana", 5).get(5, TimeUnit.SECONDS));
+        release.countDown();
+        map.close();
+    }
+
+    @Test
+    public void testCloseFromCallbackOnApplier() throws Exception {
+        // a completer running tasks directly completes the futures on the applier thread
+        GroupCommitBidirectionalTreeMap<String, Integer> map = new GroupCommitBidirectionalTreeMap<>(
+                new BidirectionalTreeMap<String, Integer>(), 8, 50, TimeUnit.MILLISECONDS, Runnable::run);
+        CompletableFuture<Boolean> first = map.putAsync("carrot", 4);
+        CompletableFuture<Boolean> second = map.putAsync("banana", 5);
+        first.thenRun(() -> {
+            try {
+                map.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        map.close();
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RadixBidirectionalMapTest {
+
+    private RadixBidirectionalMap<Integer> map;
+
+    @BeforeEach
+    public void setup(){
+        map = new RadixBidirectionalMap<>();
+        map.put("tenant42/orders/1", 1);
+        map.put("tenant42/orders/2", 2);
+        map.put("tenant42/users", 3);
+        map.put("tenant7/orders/1", 4);
+        map.put("tenant4", 5);
+    }
+
+    @Test
+    public void testLookups() {
+        assertEquals(3, (int) map.getValue("tenant42/users"));
+        assertEquals("tenant4", map.getKey(5));
+        assertNull(map.getValue("tenant42/orders"));
+        assertNull(map.getValue("tenant42/orders/3"));
+        assertFalse(map.put("tenant4", 9));
+        assertFalse(map.put("tenant9", 1));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void testPrefixQueries() {
+        assertEquals(Arrays.asList("tenant42/orders/1", "tenant42/orders/2", "tenant42/users"), map.keysWithPrefix("tenant42/"));
+        assertEquals(Arrays.asList("tenant42/orders/1", "tenant42/orders/2"), map.keysWithPrefix("tenant42/ord"));
+        assertEquals(Arrays.asList("tenant4", "tenant42/orders/1", "tenant42/orders/2", "tenant42/users"), map.keysWithPrefix("tenant4"));
+        assertEquals(Collections.emptyList(), map.keysWithPrefix("tenant5"));
+    }
+
+    @Test
+    public void testOrdering() {
+        assertEquals("(tenant4, 5), (tenant42/orders/1, 1), (tenant42/orders/2, 2), (tenant42/users, 3), (tenant7/orders/1, 4)",
+                map.inOrderTraverseByKeys());
+        assertEquals("(tenant42/orders/1, 1), (tenant42/orders/2, 2), (tenant42/users, 3), (tenant7/orders/1, 4), (tenant4, 5)",
+                map.inOrderTraverseByValues());
+    }
+
+    @Test
+    public void testRemove() {
+        assertEquals(5, (int) map.remove("tenant4"));
+        assertEquals(1, (int) map.remove("tenant42/orders/1"));
+        assertNull(map.remove("tenant42/orders"));
+        assertEquals(3, map.size());
+        assertFalse(map.containsValue(1));
+        assertEquals(2, (int) map.getValue("tenant42/orders/2"));
+        assertEquals(Arrays.asList("tenant42/orders/2", "tenant42/users"), map.keysWithPrefix("tenant4"));
+    }
+
+    @Test
+    public void testMatchesTreeMap() {
+        Random random = new Random(42);
+        RadixTree<Integer> tree = new RadixTree<>();
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        for(int i=0; i < 5000; i++) {
+            String key = "k/" + random.nextInt(40) + "/" + random.nextInt(40);
+            if(random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), tree.remove(key));
+            } else {
+                assertEquals(!expected.containsKey(key), tree.add(key, i));
+                expected.putIfAbsent(key, i);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        List<String> keys = new ArrayList<>();
+        tree.forEach((key, value) -> {
+            keys.add(key);
+            assertEquals(expected.get(key), value);
+        });
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+    }
+}
@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedBidirectionalTreeMapTest {
+
+    private ShardedBidirectionalTreeMap<String, Integer> map;
+
+    @BeforeEach
+    public void setup(){
+        map = new ShardedBidirectionalTreeMap<>(4, 4);
+        String[] keys = {"carrot", "banana", "date", "fig", "eggplant", "apple"};
+        int[] values = {4, 5, 6, 2, 1, 3};
+        for(int i=0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+    }
+
+    @Test
+    public void testLookupsAcrossShards() {
+        assertTrue(map.shardCount() > 1);
+        assertEquals(6, map.size());
+        assertEquals(5, (int) map.getValue("banana"));
+        assertEquals("fig", map.getKey(2));
+        assertNull(map.getValue("orange"));
+        assertNull(map.getKey(28));
+    }
+
+    @Test
+    public void testUniquenessAcrossShards() {
+        assertFalse(map.put("carrot", 10));
+        assertFalse(map.put("zucchini", 1)); // value lives with a key in another shard
+        assertTrue(map.put("zucchini", 7));
+        assertEquals(7, map.size());
+    }
+
+    @Test
+    public void testOrdering() {
+        assertEquals("(apple, 3), (banana, 5), (carrot, 4), (date, 6), (eggplant, 1), (fig, 2)", map.inOrderTraverseByKeys());
+        assertEquals("(eggplant, 1), (fig, 2), (apple, 3), (carrot, 4), (banana, 5), (date, 6)", map.inOrderTraverseByValues());
+    }
+
+    @Test
+    public void testRemove() {
+        assertEquals(4, (int) map.remove("carrot"));
+        assertEquals(5, map.size());
+        assertFalse(map.containsValue(4));
+        assertFalse(map.containsKey("carrot"));
+        assertNull(map.remove("grape"));
+        assertTrue(map.put("grape", 4));
+    }
+
+    @Test
+    public void testConcurrentPuts() throws InterruptedException {
+        ShardedBidirectionalTreeMap<Integer, Integer> concurrent = new ShardedBidirectionalTreeMap<>(16, 64);
+        Thread[] threads = new Thread[4];
+        for(int t=0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for(int i=offset; i < 4000; i += threads.length) {
+                    concurrent.put(i, -i);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, concurrent.size());
+        for(int i=0; i < 4000; i++) {
+            assertEquals(-i, (int) concurrent.getValue(i));
+            assertEquals(i, (int) concurrent.getKey(-i));
+        }
+    }
+
+    @Test
+    public void testIncreasingKeysDoNotKeepSplitting() throws InterruptedException {
+        ShardedBidirectionalTreeMap<Integer, Integer> ingest = new ShardedBidirectionalTreeMap<>(16, 1 << 20);
+        AtomicInteger next = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for(int t=0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for(int i = next.getAndIncrement(); i < 5000; i = next.getAndIncrement()) {
+                    ingest.put(i, -i);
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(5000, ingest.size());
+        // writers only ever contend above the median, so splitting would not spread them
+        assertTrue(ingest.shardCount() <= 2);
+    }
+}